@@ -4,6 +4,7 @@ plugins {
     id("application")
     id("org.openjfx.javafxplugin") version "0.1.0"
     id("org.beryx.jlink") version "3.0.1"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "edu.trincoll"
@@ -26,6 +27,14 @@ application {
     mainClass.set("edu.trincoll.ImageCarousel")
 }
 
+// Headless UI performance harness, checked against a stored baseline
+val perfTest: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+configurations[perfTest.implementationConfigurationName].extendsFrom(configurations.testImplementation.get())
+configurations[perfTest.runtimeOnlyConfigurationName].extendsFrom(configurations.testRuntimeOnly.get())
+
 repositories {
     mavenCentral()
 }
@@ -49,6 +58,54 @@ dependencies {
     testImplementation("org.testfx:testfx-junit5:4.0.18")
 
     testImplementation("org.hamcrest:hamcrest:3.0")
+
+    "perfTestRuntimeOnly"("org.testfx:openjfx-monocle:21.0.2")
+}
+
+// Benchmarks live in src/jmh/java; run with ./gradlew jmh
+val perfTestTask = tasks.register<Test>("perfTest") {
+    description = "Boots the carousel headless against generated images and compares timings to the baseline."
+    group = "verification"
+    testClassesDirs = perfTest.output.classesDirs
+    classpath = perfTest.runtimeClasspath
+    useJUnitPlatform()
+    shouldRunAfter(tasks.test)
+    // Not part of check, since timings depend on the machine; CI runs it as the performance job
+    // Timings are the point, so never skip as up to date
+    outputs.upToDateWhen { false }
+
+    // Monocle's headless platform with software rendering
+    systemProperty("testfx.robot", "glass")
+    systemProperty("testfx.headless", "true")
+    systemProperty("glass.platform", "Monocle")
+    systemProperty("monocle.platform", "Headless")
+    systemProperty("prism.order", "sw")
+    systemProperty("prism.text", "t2k")
+    systemProperty("java.awt.headless", "true")
+
+    // -Pperf.tolerance=0.5 allows 50% over baseline; -Pperf.updateBaseline=true records a run
+    // and sets the baseline to the median of the runs recorded since the last clean
+    systemProperty("perf.baseline", file("src/perfTest/resources/perf-baseline.properties").absolutePath)
+    systemProperty("perf.report", layout.buildDirectory.file("reports/perf/results.properties").get().asFile.absolutePath)
+    systemProperty("perf.tolerance", providers.gradleProperty("perf.tolerance").getOrElse("0.25"))
+    systemProperty("perf.updateBaseline", providers.gradleProperty("perf.updateBaseline").getOrElse("false"))
+    testLogging {
+        events(TestLogEvent.FAILED, TestLogEvent.PASSED)
+        showStandardStreams = true
+    }
+}
+
+jmh {
+    jmhVersion = "1.37"
+    warmupIterations = 2
+    iterations = 5
+    fork = 1
+    // Allocation per operation, which shows how much each path copies
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+    // -Pjmh.includes=ScanThroughput runs only the benchmarks matching that pattern
+    providers.gradleProperty("jmh.includes").orNull?.let { includes = listOf(it) }
 }
 
 tasks.test {
@@ -0,0 +1,156 @@
+package edu.trincoll;
+
+import javafx.application.Platform;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generated images for the benchmarks. Each fixture is written once under the system
+ * temp directory and reused by later runs, so results do not include generation.
+ */
+final class BenchmarkFixtures {
+    private static final Path ROOT = Paths.get(System.getProperty("java.io.tmpdir"), "imagecarousel-jmh");
+    private static final int PREVIEW_WIDTH = 160;
+    private static final int PREVIEW_HEIGHT = 120;
+
+    private BenchmarkFixtures() {
+    }
+
+    /** Width and height from a "WxH" benchmark parameter. */
+    static int[] parseSize(String size) {
+        String[] parts = size.split("x");
+        return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+    }
+
+    static Path image(String format, String size) {
+        return image(format, size, 0, false);
+    }
+
+    /** A JPEG carrying an EXIF preview, as cameras write them. */
+    static Path cameraImage(String size) {
+        return image("jpg", size, 0, true);
+    }
+
+    /** A directory of {@code count} images, alternating JPEG and PNG. */
+    static Path directory(int count, String size) {
+        Path directory = ROOT.resolve("dir-" + count + "-" + size);
+        for (int i = 0; i < count; i++) {
+            Path source = image(i % 2 == 0 ? "jpg" : "png", size, i, false);
+            Path target = directory.resolve(source.getFileName());
+            try {
+                if (!Files.exists(target)) {
+                    Files.createDirectories(directory);
+                    Files.copy(source, target);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return directory;
+    }
+
+    private static synchronized Path image(String format, String size, int seed, boolean withPreview) {
+        String name = size + "-" + seed + (withPreview ? "-camera" : "") + "." + format;
+        Path path = ROOT.resolve(name);
+        if (Files.exists(path)) return path;
+
+        int[] dimensions = parseSize(size);
+        try {
+            Files.createDirectories(ROOT);
+            byte[] bytes = encode(render(dimensions[0], dimensions[1], seed), format);
+            if (withPreview) {
+                bytes = withExifPreview(bytes, encode(render(PREVIEW_WIDTH, PREVIEW_HEIGHT, seed), "jpg"));
+            }
+            Files.write(path, bytes);
+            return path;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Smooth gradients with some noise, so the files compress like photographs
+    private static BufferedImage render(int width, int height, int seed) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.getHSBColor(seed * 0.13f, 0.6f, 0.9f),
+                width, height, Color.getHSBColor(seed * 0.13f + 0.5f, 0.8f, 0.3f)));
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+
+        Random random = new Random(seed);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(17) - 8;
+                int r = Math.clamp((row[x] >> 16 & 0xFF) + noise, 0, 255);
+                int gr = Math.clamp((row[x] >> 8 & 0xFF) + noise, 0, 255);
+                int b = Math.clamp((row[x] & 0xFF) + noise, 0, 255);
+                row[x] = r << 16 | gr << 8 | b;
+            }
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+        return image;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, format, out)) {
+            throw new IOException("No ImageIO writer for " + format);
+        }
+        return out.toByteArray();
+    }
+
+    // Inserts an APP1 segment after SOI: a big-endian TIFF with an empty IFD0 and an
+    // IFD1 pointing at the preview
+    private static byte[] withExifPreview(byte[] jpeg, byte[] preview) throws IOException {
+        ByteArrayOutputStream segment = new ByteArrayOutputStream();
+        DataOutputStream exif = new DataOutputStream(segment);
+        exif.writeBytes("Exif\0\0MM");
+        exif.writeShort(42);
+        exif.writeInt(8);
+        exif.writeShort(0);
+        exif.writeInt(14);
+        exif.writeShort(2);
+        for (int[] entry : new int[][]{{0x0201, 44}, {0x0202, preview.length}}) {
+            exif.writeShort(entry[0]);
+            exif.writeShort(4);
+            exif.writeInt(1);
+            exif.writeInt(entry[1]);
+        }
+        exif.writeInt(0);
+        exif.write(preview);
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(file);
+        out.writeShort(0xFFD8);
+        out.writeShort(0xFFE1);
+        out.writeShort(segment.size() + 2);
+        segment.writeTo(out);
+        out.write(Arrays.copyOfRange(jpeg, 2, jpeg.length));
+        return file.toByteArray();
+    }
+
+    /** JavaFX images need the toolkit running, though nothing is ever shown. */
+    static void startToolkit() {
+        try {
+            Platform.startup(() -> {
+            });
+        } catch (IllegalStateException e) {
+            // Already running in this fork
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package edu.trincoll;
+
+import javafx.scene.image.Image;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode latency per format and size: JavaFX at full size, JavaFX scaled to a screen,
+ * and the app's reduced-size path (a format decoder, else a subsampling reader).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DecodeBenchmark {
+    private static final int SCREEN_WIDTH = 1920;
+    private static final int SCREEN_HEIGHT = 1080;
+
+    @Param({"jpg", "png"})
+    String format;
+
+    @Param({"640x480", "1920x1080", "4000x3000"})
+    String size;
+
+    private ImageEntry entry;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkFixtures.startToolkit();
+        entry = ImageHeaderReader.read(BenchmarkFixtures.image(format, size));
+    }
+
+    @Benchmark
+    public Image javafxFull() {
+        return new Image(entry.url(), false);
+    }
+
+    @Benchmark
+    public Image javafxToScreen() {
+        return new Image(entry.url(), SCREEN_WIDTH, SCREEN_HEIGHT, true, true, false);
+    }
+
+    @Benchmark
+    public Image reducedToScreen() throws IOException {
+        Image decoded = ImageDecoders.decode(entry, SCREEN_WIDTH, SCREEN_HEIGHT);
+        if (decoded != null) return decoded;
+        return RegionDecoder.decode(entry.path(), null,
+                RegionDecoder.subsamplingFor(entry.width(), entry.height(), SCREEN_WIDTH, SCREEN_HEIGHT));
+    }
+}
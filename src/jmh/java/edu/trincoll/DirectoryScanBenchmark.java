@@ -0,0 +1,45 @@
+package edu.trincoll;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Validating a directory: the walk plus one header read per file. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DirectoryScanBenchmark {
+
+    @Param({"50", "200"})
+    int fileCount;
+
+    private Path directory;
+    private Path singleFile;
+
+    @Setup
+    public void setUp() {
+        directory = BenchmarkFixtures.directory(fileCount, "640x480");
+        singleFile = BenchmarkFixtures.image("jpg", "640x480");
+    }
+
+    @Benchmark
+    public List<ImageEntry> loadImages() {
+        return new ImageLoader(directory).loadImages();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ImageEntry readHeader() throws IOException {
+        return ImageHeaderReader.read(singleFile);
+    }
+}
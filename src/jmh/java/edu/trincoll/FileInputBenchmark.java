@@ -0,0 +1,142 @@
+package edu.trincoll;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffered reads against a mapping for large JPEGs and PNGs: reading the whole file
+ * as decoders do, and a subsampled ImageIO decode as the tile and preview paths do.
+ * The buffered read also reports how many reads reached the file (one read syscall
+ * each) as {@code fileReads}; the mapped read makes none. The gc profiler's
+ * {@code gc.alloc.rate.norm} shows the bytes copied into the heap per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FileInputBenchmark {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Decoders pull a few KB at a time
+    private static final int READ_SIZE = 4096;
+    private static final int SUBSAMPLING = 4;
+
+    @Param({"jpg", "png"})
+    String format;
+
+    @Param({"1920x1080", "4000x3000"})
+    String size;
+
+    private Path path;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class FileReads {
+        public long fileReads;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            fileReads = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        path = BenchmarkFixtures.image(format, size);
+    }
+
+    @Benchmark
+    public long readBuffered(FileReads reads) throws IOException {
+        try (InputStream input = new BufferedInputStream(counting(Files.newInputStream(path), reads), BUFFER_SIZE)) {
+            return drain(input);
+        }
+    }
+
+    @Benchmark
+    public long readMapped() throws IOException {
+        try (InputStream input = MappedFileInput.stream(map(path))) {
+            return drain(input);
+        }
+    }
+
+    @Benchmark
+    public BufferedImage subsampleBuffered() throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            return subsample(input);
+        }
+    }
+
+    @Benchmark
+    public BufferedImage subsampleMapped() throws IOException {
+        try (ImageInputStream input = MappedFileInput.imageStream(map(path))) {
+            return subsample(input);
+        }
+    }
+
+    // Maps regardless of size, so smaller fixtures compare the mechanisms too
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static long drain(InputStream input) throws IOException {
+        byte[] chunk = new byte[READ_SIZE];
+        long total = 0;
+        int read;
+        while ((read = input.read(chunk)) != -1) {
+            total += read + chunk[0];
+        }
+        return total;
+    }
+
+    private static BufferedImage subsample(ImageInputStream input) throws IOException {
+        ImageReader reader = ImageIO.getImageReaders(input).next();
+        try {
+            reader.setInput(input, true, true);
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(SUBSAMPLING, SUBSAMPLING, 0, 0);
+            return reader.read(0, param);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private static InputStream counting(InputStream file, FileReads reads) {
+        return new FilterInputStream(file) {
+            @Override
+            public int read() throws IOException {
+                reads.fileReads++;
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                reads.fileReads++;
+                return super.read(bytes, offset, length);
+            }
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package edu.trincoll;
+
+import javafx.scene.image.Image;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stepping through a playlist the way the carousel does: pin the slide and its
+ * neighbours, then fetch the slide and warm the next one through the image cache.
+ * Decodes are synchronous here, so each step includes the decodes its misses cause.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class NavigationBenchmark {
+    private static final int PLAYLIST_SIZE = 20;
+    private static final int SCREEN_WIDTH = 1920;
+    private static final int SCREEN_HEIGHT = 1080;
+
+    // Slides the cache can hold at screen size
+    @Param({"3", "10"})
+    int cachedSlides;
+
+    private List<ImageEntry> playlist;
+    private ImageCache cache;
+    private int current;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkFixtures.startToolkit();
+        Path directory = BenchmarkFixtures.directory(PLAYLIST_SIZE, "4000x3000");
+        playlist = new ImageLoader(directory).loadImages();
+        cache = new ImageCache((long) SCREEN_WIDTH * SCREEN_HEIGHT * 4 * cachedSlides,
+                NavigationBenchmark::decodeNow);
+        cache.setDisplaySize(SCREEN_WIDTH, SCREEN_HEIGHT);
+    }
+
+    private static Image decodeNow(ImageEntry entry, int width, int height) {
+        try {
+            Image decoded = ImageDecoders.decode(entry, width, height);
+            return decoded != null ? decoded : new Image(entry.url(), width, height, true, true, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Benchmark
+    public Image next() {
+        int size = playlist.size();
+        current = (current + 1) % size;
+        cache.pin(List.of(
+                playlist.get(current),
+                playlist.get((current + 1) % size),
+                playlist.get((current - 1 + size) % size)));
+        Image shown = cache.get(playlist.get(current));
+        cache.get(playlist.get((current + 1) % size));
+        return shown;
+    }
+}
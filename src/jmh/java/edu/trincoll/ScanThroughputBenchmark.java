@@ -0,0 +1,84 @@
+package edu.trincoll;
+
+import javafx.scene.image.Image;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A directory on a decode pool of each size: header validation alone, and validation
+ * followed by decoding every file to screen size, as opening a folder and paging
+ * through it would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ScanThroughputBenchmark {
+    private static final int SCREEN_WIDTH = 1920;
+    private static final int SCREEN_HEIGHT = 1080;
+
+    @Param({"1", "2", "4", "8"})
+    int threads;
+
+    @Param({"200"})
+    int fileCount;
+
+    private Path directory;
+    private DecodeExecutor executor;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.startToolkit();
+        directory = BenchmarkFixtures.directory(fileCount, "640x480");
+        executor = new DecodeExecutor(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public List<ImageEntry> validate() {
+        return new ImageLoader(directory, executor).loadImages();
+    }
+
+    @Benchmark
+    public long validateAndDecode() {
+        List<CompletableFuture<Image>> decodes = new ArrayList<>();
+        for (ImageEntry entry : new ImageLoader(directory, executor).loadImages()) {
+            decodes.add(executor.submitDecodeWaiting(() -> decodeToScreen(entry)));
+        }
+        long pixels = 0;
+        for (CompletableFuture<Image> decode : decodes) {
+            Image image = decode.join();
+            pixels += (long) image.getWidth() * (long) image.getHeight();
+        }
+        return pixels;
+    }
+
+    private static Image decodeToScreen(ImageEntry entry) {
+        try {
+            Image decoded = ImageDecoders.decode(entry, SCREEN_WIDTH, SCREEN_HEIGHT);
+            if (decoded != null) return decoded;
+            return RegionDecoder.decode(entry.path(), null,
+                    RegionDecoder.subsamplingFor(entry.width(), entry.height(), SCREEN_WIDTH, SCREEN_HEIGHT));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package edu.trincoll;
+
+import javafx.scene.image.Image;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** The ways ThumbnailView can produce a grid thumbnail, from cheapest to dearest. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ThumbnailBenchmark {
+    private static final int THUMB_SIZE = 120;
+
+    @Param({"1920x1080", "4000x3000"})
+    String size;
+
+    private ImageEntry camera;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkFixtures.startToolkit();
+        camera = ImageHeaderReader.read(BenchmarkFixtures.cameraImage(size));
+    }
+
+    @Benchmark
+    public Image embeddedPreview() throws IOException {
+        return new Image(new ByteArrayInputStream(ExifThumbnailReader.read(camera.path())));
+    }
+
+    @Benchmark
+    public Image dctScaledDecode() throws IOException {
+        return ImageDecoders.decode(camera, THUMB_SIZE, THUMB_SIZE);
+    }
+
+    @Benchmark
+    public Image javafxScaledDecode() {
+        return new Image(camera.url(), THUMB_SIZE, THUMB_SIZE, true, true, false);
+    }
+}
@@ -0,0 +1,202 @@
+package edu.trincoll;
+
+import javafx.scene.image.Image;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.nio.file.Path;
+
+/**
+ * Flight Recorder events for the hot paths, each mirrored into the
+ * {@link MetricsRegistry}. The events cost nothing until a recording enables them, e.g.
+ * {@code jcmd <pid> JFR.start}; the registry is always on.
+ */
+public final class CarouselEvents {
+    private static final MetricsRegistry METRICS = MetricsRegistry.getDefault();
+
+    private CarouselEvents() {
+    }
+
+    @Name("edu.trincoll.DirectoryScan")
+    @Label("Directory Scan")
+    @Category("Image Carousel")
+    @Description("Walking a directory and validating the header of every candidate file")
+    public static final class DirectoryScan extends Event {
+        @Label("Directory")
+        String directory;
+
+        @Label("Files")
+        int files;
+
+        @Label("Images")
+        int images;
+
+        transient long started = System.nanoTime();
+    }
+
+    @Name("edu.trincoll.Decode")
+    @Label("Image Decode")
+    @Category("Image Carousel")
+    @Description("Decoding one image file, from request until its pixels are available")
+    public static final class Decode extends Event {
+        @Label("File")
+        String file;
+
+        @Label("Format")
+        String format;
+
+        @Label("Purpose")
+        @Description("What the pixels are for: slide, thumbnail or tile")
+        String purpose;
+
+        @Label("File Size")
+        @DataAmount
+        long bytes;
+
+        @Label("Width")
+        int width;
+
+        @Label("Height")
+        int height;
+
+        @Label("Pixels")
+        long pixels;
+
+        transient long started = System.nanoTime();
+    }
+
+    @Name("edu.trincoll.CacheAccess")
+    @Label("Image Cache Access")
+    @Category("Image Carousel")
+    public static final class CacheAccess extends Event {
+        @Label("File")
+        String file;
+
+        @Label("Result")
+        @Description("hit, miss or evict")
+        String result;
+    }
+
+    @Name("edu.trincoll.Transition")
+    @Label("Slide Transition")
+    @Category("Image Carousel")
+    public static final class TransitionRun extends Event {
+        @Label("Type")
+        String type;
+
+        @Label("Frames")
+        int frames;
+
+        @Label("Dropped Frames")
+        int droppedFrames;
+
+        @Label("Worst Frame")
+        @Timespan(Timespan.NANOSECONDS)
+        long worstFrame;
+    }
+
+    @Name("edu.trincoll.SlideDisplay")
+    @Label("Slide Display")
+    @Category("Image Carousel")
+    @Description("From a slide being requested until its pixels are on screen")
+    public static final class SlideDisplay extends Event {
+        @Label("File")
+        String file;
+
+        transient long started = System.nanoTime();
+    }
+
+    public static DirectoryScan beginScan(Path directory) {
+        DirectoryScan event = new DirectoryScan();
+        event.directory = directory.toString();
+        event.begin();
+        return event;
+    }
+
+    public static void endScan(DirectoryScan event, int files, int images) {
+        event.end();
+        METRICS.recordNanos("directory.scan", System.nanoTime() - event.started);
+        METRICS.add("directory.files", files);
+        if (event.shouldCommit()) {
+            event.files = files;
+            event.images = images;
+            event.commit();
+        }
+    }
+
+    public static Decode beginDecode(ImageEntry entry, String purpose) {
+        Decode event = new Decode();
+        event.file = entry.fileName();
+        event.format = entry.format().name();
+        event.purpose = purpose;
+        event.bytes = entry.fileSize();
+        event.begin();
+        return event;
+    }
+
+    /** Completes the event now, or once a background-loading image has its pixels. */
+    public static void endDecode(Decode event, Image image) {
+        if (image == null || PendingImage.isFailed(image)) return;
+        PendingImage.whenLoaded(image, () -> completeDecode(event, image));
+    }
+
+    private static void completeDecode(Decode event, Image image) {
+        event.end();
+        METRICS.recordNanos("decode." + event.purpose, System.nanoTime() - event.started);
+        METRICS.add("decode.pixels", (long) (image.getWidth() * image.getHeight()));
+        if (event.shouldCommit()) {
+            event.width = (int) image.getWidth();
+            event.height = (int) image.getHeight();
+            event.pixels = (long) event.width * event.height;
+            event.commit();
+        }
+    }
+
+    public static void cacheAccess(ImageEntry entry, String result) {
+        METRICS.increment("cache." + result);
+        CacheAccess event = new CacheAccess();
+        if (event.shouldCommit()) {
+            event.file = entry.fileName();
+            event.result = result;
+            event.commit();
+        }
+    }
+
+    public static TransitionRun beginTransition(TransitionType type) {
+        TransitionRun event = new TransitionRun();
+        event.type = type.name();
+        event.begin();
+        return event;
+    }
+
+    public static void endTransition(TransitionRun event, FrameTimeMonitor.FrameStats stats) {
+        event.end();
+        METRICS.recordNanos("transition", stats.durationNanos());
+        METRICS.add("transition.frames", stats.frames());
+        METRICS.add("transition.droppedFrames", stats.droppedFrames());
+        if (event.shouldCommit()) {
+            event.frames = stats.frames();
+            event.droppedFrames = stats.droppedFrames();
+            event.worstFrame = stats.worstFrameNanos();
+            event.commit();
+        }
+    }
+
+    public static SlideDisplay beginSlide(ImageEntry entry) {
+        SlideDisplay event = new SlideDisplay();
+        event.file = entry.fileName();
+        event.begin();
+        return event;
+    }
+
+    public static void endSlide(SlideDisplay event) {
+        event.end();
+        METRICS.recordNanos("slide.display", System.nanoTime() - event.started);
+        event.commit();
+    }
+}
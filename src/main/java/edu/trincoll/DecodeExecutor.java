@@ -0,0 +1,138 @@
+package edu.trincoll;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs image work off the FX thread. File reads run on virtual threads, with the
+ * number of reads in flight capped so a huge directory cannot open thousands of files
+ * at once; CPU-bound decoding runs on a fixed pool of platform threads whose queue is
+ * bounded. Past the bound, {@link #submitDecode} fails the returned future at once, as
+ * the FX thread must never wait, while {@link #submitDecodeWaiting} makes a background
+ * producer wait for a decode to start. Callers consume the returned futures in
+ * submission order.
+ */
+public class DecodeExecutor implements AutoCloseable {
+    // Reads mostly wait on the disk, so allow more of them than there are cores
+    private static final int IO_PERMITS_PER_THREAD = 4;
+    // Same bound as the scan queue
+    static final int DECODE_QUEUE_CAPACITY = 256;
+    /** How long FX-thread callers wait before offering work the full queue turned away. */
+    public static final long QUEUE_RETRY_MILLIS = 100;
+
+    private static DecodeExecutor defaultExecutor;
+
+    private final int parallelism;
+    private final ExecutorService ioExecutor;
+    private final ThreadPoolExecutor decodeExecutor;
+    private final Semaphore ioPermits;
+
+    public DecodeExecutor(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        this.ioExecutor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("decode-io-", 0).factory());
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.decodeExecutor = new ThreadPoolExecutor(this.parallelism, this.parallelism,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(DECODE_QUEUE_CAPACITY), work -> {
+            Thread thread = new Thread(work, "decode-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }, DecodeExecutor::rejected);
+        this.ioPermits = new Semaphore(this.parallelism * IO_PERMITS_PER_THREAD);
+    }
+
+    // Marks work whose submitter can afford to wait for room in the queue
+    private record Waiting(Runnable work) implements Runnable {
+        @Override
+        public void run() {
+            work.run();
+        }
+    }
+
+    private static void rejected(Runnable work, ThreadPoolExecutor pool) {
+        if (pool.isShutdown()) {
+            throw new RejectedExecutionException("Decode executor is closed");
+        }
+        if (!(work instanceof Waiting)) {
+            throw new RejectedExecutionException("Decode queue is full");
+        }
+        try {
+            pool.getQueue().put(work);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted waiting to queue a decode", e);
+        }
+    }
+
+    /** Shared executor sized to the machine, for callers that are not given one. */
+    public static synchronized DecodeExecutor getDefault() {
+        if (defaultExecutor == null) {
+            defaultExecutor = new DecodeExecutor(Runtime.getRuntime().availableProcessors());
+        }
+        return defaultExecutor;
+    }
+
+    public <T> CompletableFuture<T> submitIo(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                ioPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting to read", e);
+            }
+            try {
+                return work.get();
+            } finally {
+                ioPermits.release();
+            }
+        }, ioExecutor);
+    }
+
+    /**
+     * Queues a decode without ever blocking, so it is safe on the FX thread. When the
+     * queue is full or the executor closed, the future fails with a
+     * RejectedExecutionException and the caller can ask again later.
+     */
+    public <T> CompletableFuture<T> submitDecode(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, decodeExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /** Whether a {@link #submitDecode} future failed only because the queue was full. */
+    public boolean isQueueFull(CompletableFuture<?> result) {
+        return result.state() == Future.State.FAILED && !decodeExecutor.isShutdown()
+                && result.exceptionNow() instanceof RejectedExecutionException;
+    }
+
+    /** Queues a decode, waiting for room when the queue is full. Not for the FX thread. */
+    public <T> CompletableFuture<T> submitDecodeWaiting(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(work, task -> decodeExecutor.execute(new Waiting(task)));
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /** Decodes submitted but not yet started, for diagnostics. */
+    public int getQueuedDecodes() {
+        return decodeExecutor.getQueue().size();
+    }
+
+    @Override
+    public void close() {
+        ioExecutor.shutdownNow();
+        decodeExecutor.shutdownNow();
+    }
+}
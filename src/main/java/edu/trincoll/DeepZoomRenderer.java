@@ -0,0 +1,218 @@
+package edu.trincoll;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.geometry.Bounds;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Pane;
+import javafx.util.Duration;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Draws sharp tiles over the zoomed slide. The image is treated as a pyramid of
+ * levels, each half the resolution of the one below; the renderer picks the level
+ * whose pixels are at least as fine as the screen's, and decodes only the tiles of
+ * that level that cover the viewport. Decoded tiles are kept in a small LRU cache
+ * and drawn by a recycled pool of image views.
+ */
+public class DeepZoomRenderer {
+    private static final int TILE_SIZE = 512;
+    private static final int TILE_CACHE_SIZE = 64;
+
+    private record TileKey(Path path, long lastModified, int level, int column, int row) {
+    }
+
+    private final DecodeExecutor executor;
+    private final Pane tileLayer = new Pane();
+    private final Map<TileKey, Image> tileCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TileKey, Image> eldest) {
+            return size() > TILE_CACHE_SIZE;
+        }
+    };
+    private final Set<TileKey> pending = new HashSet<>();
+    private final Map<TileKey, ImageView> placedTiles = new HashMap<>();
+    private final Deque<ImageView> recycledViews = new ArrayDeque<>();
+    private Set<TileKey> visibleTiles = Set.of();
+    private ImageEntry entry;
+    private Bounds imageBounds;
+    private int level = -1;
+    private boolean retryScheduled;
+
+    public DeepZoomRenderer(DecodeExecutor executor) {
+        this.executor = executor;
+        // Tiles are positioned in the container's own coordinates and never take input
+        tileLayer.setManaged(false);
+        tileLayer.setMouseTransparent(true);
+    }
+
+    public Pane getTileLayer() {
+        return tileLayer;
+    }
+
+    /**
+     * Shows the tiles covering the visible part of the image.
+     *
+     * @param imageBounds where the fitted image sits, in container coordinates
+     * @param visible     the part of the container on screen, in container coordinates
+     * @param screenScale screen pixels per container unit
+     */
+    public void update(ImageEntry entry, Bounds imageBounds, Bounds visible, double screenScale) {
+        if (!entry.equals(this.entry)) {
+            clear();
+            this.entry = entry;
+        }
+        this.imageBounds = imageBounds;
+
+        double sourcePerUnit = entry.width() / imageBounds.getWidth();
+        // The coarsest level whose pixels are still no larger than a screen pixel
+        double sourcePerScreenPixel = sourcePerUnit / screenScale;
+        int newLevel = sourcePerScreenPixel < 2 ? 0 : (int) (Math.log(sourcePerScreenPixel) / Math.log(2));
+        if (newLevel != level) {
+            recycleAll();
+            level = newLevel;
+        }
+
+        double left = Math.max(0, (visible.getMinX() - imageBounds.getMinX()) * sourcePerUnit);
+        double top = Math.max(0, (visible.getMinY() - imageBounds.getMinY()) * sourcePerUnit);
+        double right = Math.min(entry.width(), (visible.getMaxX() - imageBounds.getMinX()) * sourcePerUnit);
+        double bottom = Math.min(entry.height(), (visible.getMaxY() - imageBounds.getMinY()) * sourcePerUnit);
+
+        Set<TileKey> wanted = new HashSet<>();
+        int tileSource = TILE_SIZE << level;
+        for (int row = (int) (top / tileSource); row * tileSource < bottom; row++) {
+            for (int column = (int) (left / tileSource); column * tileSource < right; column++) {
+                wanted.add(new TileKey(entry.path(), entry.lastModified(), level, column, row));
+            }
+        }
+        visibleTiles = wanted;
+
+        Iterator<Map.Entry<TileKey, ImageView>> placed = placedTiles.entrySet().iterator();
+        while (placed.hasNext()) {
+            Map.Entry<TileKey, ImageView> tile = placed.next();
+            if (!wanted.contains(tile.getKey())) {
+                recycle(tile.getValue());
+                placed.remove();
+            }
+        }
+
+        for (TileKey key : wanted) {
+            Image cached = tileCache.get(key);
+            if (cached != null) {
+                place(key, cached);
+            } else {
+                request(key);
+            }
+        }
+    }
+
+    public void clear() {
+        recycleAll();
+        visibleTiles = Set.of();
+        entry = null;
+        level = -1;
+    }
+
+    private void request(TileKey key) {
+        if (!pending.add(key)) return;
+        ImageEntry source = entry;
+        CompletableFuture<Image> decode = executor.submitDecode(() -> decodeTile(source, key));
+        if (executor.isQueueFull(decode)) {
+            pending.remove(key);
+            retryLater();
+            return;
+        }
+        decode.whenComplete((tile, error) -> Platform.runLater(() -> {
+            pending.remove(key);
+            if (tile == null) return;
+            tileCache.put(key, tile);
+            // Drop tiles for a slide, level or area we have since moved away from
+            if (visibleTiles.contains(key)) {
+                place(key, tile);
+            }
+        }));
+    }
+
+    // The full queue turned tiles away; ask again for whichever are still in view then
+    private void retryLater() {
+        if (retryScheduled) return;
+        retryScheduled = true;
+        PauseTransition pause = new PauseTransition(Duration.millis(DecodeExecutor.QUEUE_RETRY_MILLIS));
+        pause.setOnFinished(e -> {
+            retryScheduled = false;
+            for (TileKey key : visibleTiles) {
+                if (!placedTiles.containsKey(key) && !tileCache.containsKey(key)) {
+                    request(key);
+                }
+            }
+        });
+        pause.play();
+    }
+
+    private static Image decodeTile(ImageEntry source, TileKey key) {
+        int tileSource = TILE_SIZE << key.level();
+        int x = key.column() * tileSource;
+        int y = key.row() * tileSource;
+        Rectangle region = new Rectangle(x, y,
+                Math.min(tileSource, source.width() - x), Math.min(tileSource, source.height() - y));
+        CarouselEvents.Decode event = CarouselEvents.beginDecode(source, "tile");
+        try {
+            Image tile = RegionDecoder.decode(source.path(), region, 1 << key.level());
+            CarouselEvents.endDecode(event, tile);
+            return tile;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not decode tile of " + source.fileName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void place(TileKey key, Image tile) {
+        ImageView view = placedTiles.get(key);
+        if (view == null) {
+            view = recycledViews.isEmpty() ? createView() : recycledViews.pop();
+            placedTiles.put(key, view);
+        }
+
+        double unitsPerSource = imageBounds.getWidth() / entry.width();
+        int tileSource = TILE_SIZE << key.level();
+        int x = key.column() * tileSource;
+        int y = key.row() * tileSource;
+        view.setImage(tile);
+        view.setLayoutX(imageBounds.getMinX() + x * unitsPerSource);
+        view.setLayoutY(imageBounds.getMinY() + y * unitsPerSource);
+        view.setFitWidth(Math.min(tileSource, entry.width() - x) * unitsPerSource);
+        view.setFitHeight(Math.min(tileSource, entry.height() - y) * unitsPerSource);
+        view.setVisible(true);
+    }
+
+    private ImageView createView() {
+        ImageView view = new ImageView();
+        view.setSmooth(true);
+        tileLayer.getChildren().add(view);
+        return view;
+    }
+
+    private void recycleAll() {
+        placedTiles.values().forEach(this::recycle);
+        placedTiles.clear();
+    }
+
+    private void recycle(ImageView view) {
+        view.setImage(null);
+        view.setVisible(false);
+        recycledViews.push(view);
+    }
+}
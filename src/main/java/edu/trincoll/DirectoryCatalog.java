@@ -0,0 +1,117 @@
+package edu.trincoll;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Remembers the validated playlist of a directory between runs, so the first slide
+ * can be shown before the directory is walked again. Entries are stored relative to
+ * the directory with their size, modification time, dimensions and format. The file
+ * is replaced atomically, so a crash leaves either the old catalog or the new one.
+ */
+public class DirectoryCatalog {
+    private static final int MAGIC = 0x49434443; // "ICDC"
+    private static final int VERSION = 1;
+
+    private final Path catalogFile;
+    private final Path directory;
+
+    public DirectoryCatalog(Path catalogFile, Path directory) {
+        this.catalogFile = catalogFile;
+        this.directory = directory.toAbsolutePath();
+    }
+
+    public static DirectoryCatalog forDirectory(Path directory) {
+        String key = Integer.toHexString(directory.toAbsolutePath().toString().hashCode());
+        return new DirectoryCatalog(PreferencesManager.getDataDirectory()
+                .resolve("catalogs").resolve(key + ".catalog"), directory);
+    }
+
+    /** Returns the catalogued entries, or an empty list if there is no usable catalog. */
+    public List<ImageEntry> load() {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(catalogFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                System.err.println("Ignoring incompatible catalog: " + catalogFile);
+                return List.of();
+            }
+            // Directories can share a hash, so the catalog names the one it describes
+            if (!in.readUTF().equals(directory.toString())) {
+                return List.of();
+            }
+
+            int count = in.readInt();
+            List<ImageEntry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Path path = directory.resolve(in.readUTF());
+                ImageFormat format = ImageFormat.valueOf(in.readUTF());
+                int width = in.readInt();
+                int height = in.readInt();
+                long fileSize = in.readLong();
+                long lastModified = in.readLong();
+                entries.add(new ImageEntry(path, format, width, height, fileSize, lastModified));
+            }
+            return entries;
+        } catch (NoSuchFileException e) {
+            return List.of();
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Ignoring unreadable catalog " + catalogFile + ": " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    public void save(List<ImageEntry> entries) {
+        Path temp = null;
+        try {
+            Path parent = catalogFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            // A temp file of its own, so a save that overlaps another cannot mix their writes
+            temp = Files.createTempFile(parent, catalogFile.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel)));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(directory.toString());
+                out.writeInt(entries.size());
+                for (ImageEntry entry : entries) {
+                    out.writeUTF(directory.relativize(entry.path().toAbsolutePath()).toString());
+                    out.writeUTF(entry.format().name());
+                    out.writeInt(entry.width());
+                    out.writeInt(entry.height());
+                    out.writeLong(entry.fileSize());
+                    out.writeLong(entry.lastModified());
+                }
+                out.flush();
+                // The rename must not reach the disk before the data it points at
+                channel.force(true);
+            }
+            Files.move(temp, catalogFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not save catalog for " + directory + ": " + e.getMessage());
+            deleteQuietly(temp);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Left behind; it never replaces the catalog
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package edu.trincoll;
+
+import javafx.application.Platform;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Loads a directory in the background using two stages: a scan thread walks the
+ * directory and hands each candidate file to the {@link DecodeExecutor} to have its
+ * header read, and a publish thread collects the results in scan order. The queue
+ * between them is bounded, so the scan waits when validation falls behind. Valid
+ * entries are published to the FX thread in batches so the first one can be shown
+ * long before the whole directory has been processed.
+ */
+public class DirectoryLoadTask {
+    private static final int BATCH_SIZE = 32;
+    private static final long BATCH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int QUEUE_CAPACITY = 256;
+    private static final CompletableFuture<ImageEntry> END_OF_SCAN = CompletableFuture.completedFuture(null);
+
+    /**
+     * Receives pipeline results. All callbacks run on the FX application thread and
+     * stop arriving as soon as the task is cancelled. The last callback is either
+     * {@code onComplete}, when the whole directory was walked, or {@code onError},
+     * when the walk failed part way.
+     */
+    public interface Listener {
+        void onBatch(List<ImageEntry> batch);
+
+        void onProgress(int loaded, int found, boolean scanning);
+
+        void onComplete(int total);
+
+        void onError(Exception e);
+    }
+
+    private final Path directory;
+    private final Predicate<Path> filter;
+    private final Function<Path, ImageEntry> validator;
+    private final Listener listener;
+    private final DecodeExecutor executor;
+    // Validations in flight, in scan order
+    private final BlockingQueue<CompletableFuture<ImageEntry>> scanQueue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicInteger found = new AtomicInteger();
+    private volatile boolean scanning = true;
+    private volatile boolean cancelled = false;
+    private volatile boolean done = false;
+    // Why the walk stopped early; reported in place of onComplete
+    private volatile Exception failure;
+    private Thread scanThread;
+    private Thread publishThread;
+
+    DirectoryLoadTask(Path directory, Predicate<Path> filter,
+                      Function<Path, ImageEntry> validator, Listener listener,
+                      DecodeExecutor executor) {
+        this.directory = directory;
+        this.filter = filter;
+        this.validator = validator;
+        this.listener = listener;
+        this.executor = executor;
+    }
+
+    void start() {
+        scanThread = startDaemon(this::scan, "image-scan");
+        publishThread = startDaemon(this::collect, "image-publish");
+    }
+
+    public void cancel() {
+        cancelled = true;
+        if (scanThread != null) scanThread.interrupt();
+        if (publishThread != null) publishThread.interrupt();
+        // Validations that have not started yet are skipped
+        scanQueue.forEach(result -> result.cancel(false));
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    private static Thread startDaemon(Runnable work, String name) {
+        Thread thread = new Thread(work, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private void scan() {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            Iterator<Path> candidates = paths
+                    .filter(Files::isRegularFile)
+                    .filter(filter)
+                    .iterator();
+            while (!cancelled && candidates.hasNext()) {
+                Path candidate = candidates.next();
+                scanQueue.put(executor.submitIo(() -> validator.apply(candidate)));
+                found.incrementAndGet();
+            }
+        } catch (IOException | SecurityException e) {
+            System.err.println("Error scanning directory: " + e.getMessage());
+            failure = e;
+        } catch (UncheckedIOException e) {
+            System.err.println("Error scanning directory: " + e.getMessage());
+            failure = e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            endScan();
+        }
+    }
+
+    private void endScan() {
+        scanning = false;
+        try {
+            scanQueue.put(END_OF_SCAN);
+        } catch (InterruptedException e) {
+            // Only happens on cancel, which also stops the publish thread
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void collect() {
+        List<ImageEntry> batch = new ArrayList<>();
+        int loaded = 0;
+        boolean firstPublished = false;
+        long started = System.nanoTime();
+        long lastFlush = started;
+        CarouselEvents.DirectoryScan scan = CarouselEvents.beginScan(directory);
+        try {
+            CompletableFuture<ImageEntry> result;
+            while (!cancelled && (result = scanQueue.take()) != END_OF_SCAN) {
+                ImageEntry entry = awaitEntry(result);
+                if (entry != null) {
+                    batch.add(entry);
+                    loaded++;
+                }
+
+                long now = System.nanoTime();
+                if (!batch.isEmpty() && (!firstPublished
+                        || batch.size() >= BATCH_SIZE
+                        || now - lastFlush >= BATCH_INTERVAL_NANOS)) {
+                    flush(batch, loaded);
+                    firstPublished = true;
+                    lastFlush = now;
+                }
+            }
+            flush(batch, loaded);
+            logThroughput(found.get(), loaded, System.nanoTime() - started);
+            CarouselEvents.endScan(scan, found.get(), loaded);
+            Exception error = failure;
+            int total = loaded;
+            publish(() -> {
+                done = true;
+                if (error != null) {
+                    listener.onError(error);
+                } else {
+                    listener.onComplete(total);
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ImageEntry awaitEntry(CompletableFuture<ImageEntry> result) throws InterruptedException {
+        try {
+            return result.get();
+        } catch (CancellationException e) {
+            return null;
+        } catch (ExecutionException e) {
+            System.err.println("Error validating image: " + e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    private void logThroughput(int files, int valid, long elapsedNanos) {
+        if (cancelled || files == 0) return;
+        double seconds = elapsedNanos / 1e9;
+        System.out.println(String.format("Validated %d files (%d images) in %.0f ms: %.0f files/s on %d threads",
+                files, valid, seconds * 1000, files / seconds, executor.getParallelism()));
+    }
+
+    private void flush(List<ImageEntry> batch, int loaded) {
+        List<ImageEntry> published = List.copyOf(batch);
+        batch.clear();
+        int foundSoFar = found.get();
+        boolean stillScanning = scanning;
+        publish(() -> {
+            if (!published.isEmpty()) {
+                listener.onBatch(published);
+            }
+            listener.onProgress(loaded, foundSoFar, stillScanning);
+        });
+    }
+
+    private void publish(Runnable action) {
+        if (cancelled) return;
+        Platform.runLater(() -> {
+            if (!cancelled) {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,236 @@
+package edu.trincoll;
+
+import javafx.application.Platform;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Watches a directory tree and reports changed image files. Events are collected
+ * until the tree has been quiet for a short while, or for at most two seconds, so a
+ * burst of copies arrives as a single update, and only the files named in those
+ * events are re-validated.
+ */
+public class DirectoryWatcher implements AutoCloseable {
+    private static final long DEBOUNCE_MILLIS = 500;
+    // A steady stream of events still reaches the playlist this often
+    private static final long MAX_BATCH_MILLIS = 2000;
+
+    /**
+     * Receives coalesced changes. Callbacks run on the FX application thread and stop
+     * arriving once the watcher is closed.
+     */
+    public interface Listener {
+        // Created or modified files that are valid images, and paths that are gone or no longer valid
+        void onChanges(List<ImageEntry> updated, Set<Path> removed);
+
+        // Events were dropped by the file system, so the directory must be rescanned
+        void onOverflow();
+    }
+
+    private enum Change { CREATED, MODIFIED, DELETED }
+
+    private final Path directory;
+    private final Predicate<Path> filter;
+    private final Function<Path, ImageEntry> validator;
+    private final Listener listener;
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private WatchService watchService;
+    private Thread watchThread;
+    private volatile boolean closed = false;
+
+    DirectoryWatcher(Path directory, Predicate<Path> filter,
+                     Function<Path, ImageEntry> validator, Listener listener) {
+        this.directory = directory;
+        this.filter = filter;
+        this.validator = validator;
+        this.listener = listener;
+    }
+
+    void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        watchThread = new Thread(this::watch, "directory-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            if (watchService != null) watchService.close();
+        } catch (IOException e) {
+            System.err.println("Error closing directory watcher: " + e.getMessage());
+        }
+    }
+
+    private void watch() {
+        try {
+            registerTree(directory, null);
+            while (!closed) {
+                Map<Path, Change> pending = new LinkedHashMap<>();
+                boolean overflow = collect(watchService.take(), pending);
+                // Keep collecting until no event has arrived for the debounce interval;
+                // anything after the deadline starts the next batch
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_BATCH_MILLIS);
+                WatchKey key;
+                while ((key = pollBefore(deadline)) != null) {
+                    overflow |= collect(key, pending);
+                }
+
+                if (overflow) {
+                    publish(listener::onOverflow);
+                } else if (!pending.isEmpty()) {
+                    deliver(pending);
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Closed while waiting for events
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Error watching directory: " + e.getMessage());
+        }
+    }
+
+    private WatchKey pollBefore(long deadline) throws InterruptedException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) return null;
+        return watchService.poll(Math.min(TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MILLIS), remaining),
+                TimeUnit.NANOSECONDS);
+    }
+
+    private boolean collect(WatchKey key, Map<Path, Change> pending) {
+        Path parent = watchedDirectories.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || parent == null) {
+                overflow = true;
+                continue;
+            }
+            Path path = parent.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                // Files copied in along with a new directory produce no events of their own
+                try {
+                    registerTree(path, pending);
+                } catch (IOException e) {
+                    // Part of the tree is unwatched, so only a full rescan can be trusted
+                    System.err.println("Could not watch " + path + ": " + e.getMessage());
+                    overflow = true;
+                }
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                record(pending, path, Change.CREATED);
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_MODIFY) {
+                record(pending, path, Change.MODIFIED);
+            } else {
+                record(pending, path, Change.DELETED);
+            }
+        }
+        if (!key.reset()) {
+            watchedDirectories.remove(key);
+        }
+        return overflow;
+    }
+
+    private static void record(Map<Path, Change> pending, Path path, Change change) {
+        Change previous = pending.get(path);
+        if (previous == Change.CREATED && change == Change.DELETED) {
+            pending.remove(path);  // Came and went within one burst
+        } else if (previous == Change.CREATED) {
+            // Still new as far as the playlist is concerned
+        } else if (previous == Change.DELETED && change == Change.CREATED) {
+            pending.put(path, Change.MODIFIED);
+        } else {
+            pending.put(path, change);
+        }
+    }
+
+    // Directories that vanish during the walk are skipped; their delete events follow
+    private void registerTree(Path root, Map<Path, Change> pending) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                try {
+                    WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                    watchedDirectories.put(key, dir);
+                    return FileVisitResult.CONTINUE;
+                } catch (NoSuchFileException e) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (pending != null) {
+                    record(pending, file, Change.CREATED);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                if (e instanceof NoSuchFileException) return FileVisitResult.CONTINUE;
+                throw e;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null && !(e instanceof NoSuchFileException)) throw e;
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    // Runs on the watch thread, so header validation stays off the FX thread
+    private void deliver(Map<Path, Change> pending) {
+        List<ImageEntry> updated = new ArrayList<>();
+        Set<Path> removed = new HashSet<>();
+        pending.forEach((path, change) -> {
+            if (change == Change.DELETED) {
+                // May be a whole directory; the listener removes everything beneath it
+                removed.add(path);
+            } else if (Files.isRegularFile(path) && filter.test(path)) {
+                ImageEntry entry = validator.apply(path);
+                if (entry != null) {
+                    updated.add(entry);
+                } else {
+                    removed.add(path);
+                }
+            }
+        });
+        if (!updated.isEmpty() || !removed.isEmpty()) {
+            publish(() -> listener.onChanges(updated, removed));
+        }
+    }
+
+    private void publish(Runnable action) {
+        if (closed) return;
+        Platform.runLater(() -> {
+            if (!closed) {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,100 @@
+package edu.trincoll;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Extracts the preview JPEG that cameras embed in the EXIF (APP1) segment. Only the
+ * metadata segments at the start of the file are read, so this costs a few KB of I/O
+ * instead of a decode.
+ */
+public final class ExifThumbnailReader {
+    private static final int BUFFER_SIZE = 4096;
+    private static final int APP1 = 0xE1;
+    private static final byte[] EXIF_HEADER = "Exif\0\0".getBytes(StandardCharsets.US_ASCII);
+    private static final int TIFF_MAGIC = 42;
+    private static final int IFD_ENTRY_SIZE = 12;
+    private static final int TYPE_SHORT = 3;
+    private static final int TAG_THUMBNAIL_OFFSET = 0x0201;
+    private static final int TAG_THUMBNAIL_LENGTH = 0x0202;
+
+    private ExifThumbnailReader() {
+    }
+
+    /** The embedded preview as JPEG bytes, or null if the file has none. */
+    public static byte[] read(Path path) throws IOException {
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE)) {
+            DataInputStream in = new DataInputStream(input);
+            if (in.readUnsignedShort() != 0xFFD8) return null;
+
+            while (true) {
+                if (in.readUnsignedByte() != 0xFF) return null;
+                int marker = in.readUnsignedByte();
+                while (marker == 0xFF) {
+                    marker = in.readUnsignedByte();
+                }
+                // Metadata precedes the image data; past it there is no preview to find
+                if (marker < 0xE0 || marker > 0xEF) return null;
+
+                int length = in.readUnsignedShort() - 2;
+                if (length < 0) return null;
+                if (marker == APP1) {
+                    byte[] segment = new byte[length];
+                    in.readFully(segment);
+                    // APP1 may also hold XMP, so keep looking if this one is not EXIF
+                    byte[] thumbnail = thumbnail(segment);
+                    if (thumbnail != null) return thumbnail;
+                } else {
+                    in.skipNBytes(length);
+                }
+            }
+        }
+    }
+
+    // Follows the TIFF structure to IFD1, which describes the thumbnail
+    static byte[] thumbnail(byte[] segment) {
+        if (segment.length < EXIF_HEADER.length + 8
+                || !Arrays.equals(segment, 0, EXIF_HEADER.length, EXIF_HEADER, 0, EXIF_HEADER.length)) {
+            return null;
+        }
+        int tiffStart = EXIF_HEADER.length;
+        ByteBuffer tiff = ByteBuffer.wrap(segment, tiffStart, segment.length - tiffStart).slice();
+        tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+
+        try {
+            if (tiff.getShort(2) != TIFF_MAGIC) return null;
+            int firstIfd = tiff.getInt(4);
+            int nextIfd = tiff.getInt(firstIfd + 2 + Short.toUnsignedInt(tiff.getShort(firstIfd)) * IFD_ENTRY_SIZE);
+            if (nextIfd == 0) return null;
+
+            int offset = -1;
+            int length = -1;
+            int entries = Short.toUnsignedInt(tiff.getShort(nextIfd));
+            for (int i = 0; i < entries; i++) {
+                int entry = nextIfd + 2 + i * IFD_ENTRY_SIZE;
+                int tag = Short.toUnsignedInt(tiff.getShort(entry));
+                int value = tiff.getShort(entry + 2) == TYPE_SHORT
+                        ? Short.toUnsignedInt(tiff.getShort(entry + 8))
+                        : tiff.getInt(entry + 8);
+                if (tag == TAG_THUMBNAIL_OFFSET) offset = value;
+                if (tag == TAG_THUMBNAIL_LENGTH) length = value;
+            }
+            if (offset <= 0 || length < 2 || length > tiff.limit() - offset) return null;
+
+            byte[] thumbnail = Arrays.copyOfRange(segment, tiffStart + offset, tiffStart + offset + length);
+            // Older cameras may store an uncompressed thumbnail instead
+            boolean isJpeg = (thumbnail[0] & 0xFF) == 0xFF && (thumbnail[1] & 0xFF) == 0xD8;
+            return isJpeg ? thumbnail : null;
+        } catch (IndexOutOfBoundsException e) {
+            return null;  // Offsets pointing outside the segment
+        }
+    }
+}
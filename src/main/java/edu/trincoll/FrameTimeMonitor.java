@@ -0,0 +1,63 @@
+package edu.trincoll;
+
+import javafx.animation.AnimationTimer;
+
+/**
+ * Measures frame pacing while an animation runs by recording the timestamp of every
+ * pulse. An interval longer than the frame budget means the frames that should have
+ * been shown in between were dropped.
+ */
+public class FrameTimeMonitor {
+    // JavaFX pulses at 60 Hz by default
+    static final long FRAME_BUDGET_NANOS = 1_000_000_000L / 60;
+
+    public record FrameStats(int frames, int droppedFrames, long worstFrameNanos, long durationNanos) {
+        public double worstFrameMillis() {
+            return worstFrameNanos / 1e6;
+        }
+
+        // How many frames the animation should have shown had every pulse been on time
+        public int expectedFrames() {
+            return (int) (durationNanos / FRAME_BUDGET_NANOS);
+        }
+    }
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            record(now);
+        }
+    };
+    private long firstPulse;
+    private long lastPulse;
+    private int frames;
+    private int droppedFrames;
+    private long worstFrameNanos;
+
+    public void start() {
+        firstPulse = 0;
+        lastPulse = 0;
+        frames = 0;
+        droppedFrames = 0;
+        worstFrameNanos = 0;
+        timer.start();
+    }
+
+    public FrameStats stop() {
+        timer.stop();
+        return new FrameStats(frames, droppedFrames, worstFrameNanos, lastPulse - firstPulse);
+    }
+
+    void record(long now) {
+        if (firstPulse == 0) {
+            firstPulse = now;
+        } else {
+            long interval = now - lastPulse;
+            worstFrameNanos = Math.max(worstFrameNanos, interval);
+            // Round so ordinary jitter around the budget does not count as a drop
+            droppedFrames += Math.max(0, Math.round((double) interval / FRAME_BUDGET_NANOS) - 1);
+        }
+        frames++;
+        lastPulse = now;
+    }
+}
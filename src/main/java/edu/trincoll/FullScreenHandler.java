@@ -68,6 +68,7 @@ public class FullScreenHandler {
                 .filter(node -> node instanceof ImageView)
                 .map(node -> (ImageView) node)
                 .map(ImageView::getImage)
+                .filter(image -> image != null)  // The idle view of the transition pair is empty
                 .findFirst()
                 .orElse(null);
 
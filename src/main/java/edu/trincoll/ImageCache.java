@@ -0,0 +1,155 @@
+package edu.trincoll;
+
+import javafx.scene.image.Image;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decoded images bounded by a byte budget. Each image costs width x height x 4 bytes
+ * at its decoded size and the least recently used ones are evicted first, except for
+ * pinned entries (the current slide and its neighbours) which are never evicted.
+ * Images are decoded no larger than the display size, and re-decoded when a larger
+ * size is asked for.
+ */
+public class ImageCache {
+    private static final int BYTES_PER_PIXEL = 4;
+    // Small growth in the requested size is not worth a re-decode
+    private static final double REDECODE_THRESHOLD = 1.1;
+
+    public interface Decoder {
+        Image decode(ImageEntry entry, int width, int height);
+    }
+
+    private record Decoded(Image image, int width, int height) {
+        long cost() {
+            return (long) width * height * BYTES_PER_PIXEL;
+        }
+    }
+
+    private final long budgetBytes;
+    private final Decoder decoder;
+    // Access-ordered, so iteration starts at the least recently used image
+    private final LinkedHashMap<ImageEntry, Decoded> images = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<ImageEntry> pinned = new HashSet<>();
+    private double displayWidth = Double.MAX_VALUE;
+    private double displayHeight = Double.MAX_VALUE;
+    private long usedBytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public ImageCache(long budgetBytes, Decoder decoder) {
+        this.budgetBytes = budgetBytes;
+        this.decoder = decoder;
+    }
+
+    public synchronized void setDisplaySize(double width, double height) {
+        displayWidth = width;
+        displayHeight = height;
+    }
+
+    public synchronized Image get(ImageEntry entry) {
+        return get(entry, displayWidth, displayHeight);
+    }
+
+    public synchronized Image get(ImageEntry entry, double boxWidth, double boxHeight) {
+        double scale = Math.min(1.0, Math.min(boxWidth / entry.width(), boxHeight / entry.height()));
+        int width = (int) Math.ceil(entry.width() * scale);
+        int height = (int) Math.ceil(entry.height() * scale);
+
+        Decoded cached = images.get(entry);
+        // A decode that failed, or never got a decode thread, is retried
+        if (cached != null && width <= cached.width() * REDECODE_THRESHOLD
+                && !PendingImage.isFailed(cached.image())) {
+            hits++;
+            CarouselEvents.cacheAccess(entry, "hit");
+            return cached.image();
+        }
+
+        misses++;
+        CarouselEvents.cacheAccess(entry, "miss");
+        if (cached != null) {
+            usedBytes -= cached.cost();
+        }
+        Decoded decoded = new Decoded(decoder.decode(entry, width, height), width, height);
+        images.put(entry, decoded);
+        usedBytes += decoded.cost();
+        evictToBudget();
+        return decoded.image();
+    }
+
+    public synchronized boolean contains(ImageEntry entry) {
+        return images.containsKey(entry);
+    }
+
+    public synchronized void invalidate(ImageEntry entry) {
+        Decoded decoded = images.remove(entry);
+        if (decoded != null) {
+            usedBytes -= decoded.cost();
+            cancelIfLoading(decoded.image());
+        }
+    }
+
+    public synchronized void pin(Collection<ImageEntry> entries) {
+        pinned.clear();
+        pinned.addAll(entries);
+        evictToBudget();
+    }
+
+    public synchronized void clear() {
+        images.values().forEach(decoded -> cancelIfLoading(decoded.image()));
+        images.clear();
+        pinned.clear();
+        usedBytes = 0;
+    }
+
+    private void evictToBudget() {
+        Iterator<Map.Entry<ImageEntry, Decoded>> eldest = images.entrySet().iterator();
+        while (usedBytes > budgetBytes && eldest.hasNext()) {
+            Map.Entry<ImageEntry, Decoded> candidate = eldest.next();
+            if (pinned.contains(candidate.getKey())) {
+                continue;
+            }
+            eldest.remove();
+            usedBytes -= candidate.getValue().cost();
+            evictions++;
+            CarouselEvents.cacheAccess(candidate.getKey(), "evict");
+            cancelIfLoading(candidate.getValue().image());
+        }
+    }
+
+    private static void cancelIfLoading(Image image) {
+        if (PendingImage.isLoading(image)) {
+            image.cancel();
+        }
+    }
+
+    public synchronized int size() {
+        return images.size();
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+}
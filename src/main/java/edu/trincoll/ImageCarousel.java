@@ -1,12 +1,15 @@
 package edu.trincoll;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.geometry.Bounds;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
@@ -19,15 +22,52 @@ import javafx.animation.Timeline;
 import javafx.geometry.Rectangle2D;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class ImageCarousel extends Application {
+    // Launch to first slide on screen, JVM startup included
+    private static final long FIRST_PIXEL_TARGET_MILLIS = 1500;
+
     private FullScreenHandler fullScreenHandler;
     private StackPane imageContainer;
     private Button toggleFullScreenButton;
     private VBox root;
-    private List<Image> images;
+    private MenuBar menuBar;
+    private ToolBar toolBar;
+    private AnimationTimer resizeTimer;
+    private AnimationTimer tileTimer;
+    private DeepZoomRenderer deepZoom;
+    private PerformanceHud performanceHud;
+    private List<ImageEntry> images;
+    private DirectoryLoadTask currentLoad;
+    private DirectoryWatcher directoryWatcher;
+    private DecodeExecutor decodeExecutor;
+    private ImageCache imageCache;
+    private ThumbnailStore thumbnailStore;
+    // Saves catalogs one at a time, in the order the scans finished
+    private final ExecutorService catalogSaver = Executors.newSingleThreadExecutor(work -> {
+        Thread thread = new Thread(work, "catalog-save");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ImagePrefetcher prefetcher;
+    private int navigationDirection = 1;
+    private ImageView currentView;
+    private ImageEntry displayedEntry;
+    // The resumed slide, until the scan reaches it and the playlist can grow around it
+    private Path resumePath;
+    private boolean playlistStarted;
+    private boolean firstPixelRecorded;
     private int currentIndex = 0;
     private Timeline rotationTimeline;
     private Path currentDirectory;
@@ -36,6 +76,7 @@ public class ImageCarousel extends Application {
     private Button prevButton;
     private Button nextButton;
     private Button pauseButton;
+    private ToggleButton thumbsButton;
     private boolean isPaused = false;
 
     private ZoomController zoomController;
@@ -60,19 +101,32 @@ public class ImageCarousel extends Application {
         this.primaryStage = stage;
         prefsManager = new PreferencesManager();
         currentSettings = prefsManager.loadSettings();  // Load saved settings
+        decodeExecutor = new DecodeExecutor(prefsManager.getDecodeThreads());
+        imageCache = new ImageCache(prefsManager.getCacheBudgetBytes(),
+                (entry, width, height) -> ImageLoader.decode(entry, width, height, decodeExecutor));
+        prefetcher = new ImagePrefetcher(imageCache,
+                prefsManager.getPrefetchAhead(), prefsManager.getPrefetchBehind());
         statusBar = new StatusBar();
-        transitionController = new TransitionController(imageContainer);
-        thumbnailView = new ThumbnailView();
+        performanceHud = new PerformanceHud(decodeExecutor, imageCache);
+        performanceHud.setShowing(prefsManager.getPerformanceHud());
+        thumbnailStore = openThumbnailStore();
+        thumbnailView = new ThumbnailView(thumbnailStore, decodeExecutor);
 
         imageContainer = new StackPane();
         imageContainer.setStyle("-fx-background-color: black;");
         VBox.setVgrow(imageContainer, Priority.ALWAYS);
-
-        // Initialize zoom controller with a blank ImageView
-        ImageView initialView = new ImageView();
-        initialView.setPreserveRatio(true);
-        zoomController = new ZoomController(initialView);
+        // Needs the container, so it can put its pair of views in it
+        transitionController = new TransitionController(imageContainer);
+        transitionController.setOnFallback(type -> updateStatusBar());
+        transitionController.setCompositeFades(prefsManager.getCompositeFades());
+        // Sharp tiles sit above the slide views while zoomed in
+        deepZoom = new DeepZoomRenderer(decodeExecutor);
+        imageContainer.getChildren().add(deepZoom.getTileLayer());
+
+        // Zoom applies to the container, so it composes with the transitions' translation
+        zoomController = new ZoomController(imageContainer);
         zoomController.getScrollPane().setStyle("-fx-background-color: black;");
+        zoomController.setOnZoomChanged(this::handleZoomChanged);
 
         viewContainer = new StackPane();
         viewContainer.setStyle("-fx-background-color: black;");
@@ -81,13 +135,30 @@ public class ImageCarousel extends Application {
 
         // Set up thumbnail selection handler
         thumbnailView.setOnThumbnailSelected(index -> {
+            // setImage re-targets the prefetcher, cancelling work around the old position
+            navigationDirection = 1;
             currentIndex = index;
             setImage(images.get(currentIndex));
         });
     }
 
+    private ThumbnailStore openThumbnailStore() {
+        try {
+            ThumbnailStore store = ThumbnailStore.openDefault();
+            // Drop thumbnails of files changed since the last run, off the FX thread
+            Thread invalidation = new Thread(store::invalidateStale, "thumbnail-invalidation");
+            invalidation.setDaemon(true);
+            invalidation.start();
+            return store;
+        } catch (IOException e) {
+            System.err.println("Thumbnail cache unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+
     private void setupMainContainer() {
-        MenuBar menuBar = createMenuBar();
+        menuBar = createMenuBar();
+        toolBar = createToolbar();
 
         toggleFullScreenButton = new Button("Toggle Full Screen");
         toggleFullScreenButton.setStyle("-fx-background-color: white; -fx-padding: 5 10 5 10;");
@@ -96,11 +167,14 @@ public class ImageCarousel extends Application {
         buttonContainer.setPadding(new Insets(10));
         buttonContainer.setAlignment(Pos.TOP_RIGHT);
 
+        StackPane.setAlignment(performanceHud, Pos.TOP_LEFT);
+        StackPane.setMargin(performanceHud, new Insets(10));
+
         StackPane mainContainer = new StackPane();
-        mainContainer.getChildren().addAll(viewContainer, buttonContainer);
+        mainContainer.getChildren().addAll(viewContainer, buttonContainer, performanceHud);
         VBox.setVgrow(mainContainer, Priority.ALWAYS);
 
-        root = new VBox(menuBar, createToolbar(), mainContainer, statusBar);
+        root = new VBox(menuBar, toolBar, mainContainer, statusBar);
         root.setFillWidth(true);
     }
 
@@ -143,7 +217,7 @@ public class ImageCarousel extends Application {
         prevButton = new Button("Previous");
         nextButton = new Button("Next");
         pauseButton = new Button("Pause");
-        ToggleButton thumbsButton = new ToggleButton("Thumbnails");
+        thumbsButton = new ToggleButton("Thumbnails");
 
         prevButton.setOnAction(e -> showPreviousImage());
         nextButton.setOnAction(e -> showNextImage());
@@ -166,7 +240,17 @@ public class ImageCarousel extends Application {
         Menu fileMenu = new Menu("File");
         MenuItem openMenuItem = new MenuItem("Open Directory...");
         openMenuItem.setOnAction(event -> handleOpenDirectory());
-        fileMenu.getItems().add(openMenuItem);
+        CheckMenuItem watchMenuItem = new CheckMenuItem("Watch Directory for Changes");
+        watchMenuItem.setSelected(prefsManager.getWatchDirectory());
+        watchMenuItem.setOnAction(event -> {
+            prefsManager.saveWatchDirectory(watchMenuItem.isSelected());
+            if (watchMenuItem.isSelected()) {
+                startWatching();
+            } else {
+                stopWatching();
+            }
+        });
+        fileMenu.getItems().addAll(openMenuItem, watchMenuItem);
 
         // Settings menu
         Menu settingsMenu = new Menu("Settings");
@@ -174,11 +258,37 @@ public class ImageCarousel extends Application {
         settingsMenuItem.setOnAction(event -> showSettingsDialog());
         settingsMenu.getItems().add(settingsMenuItem);
 
-        menuBar.getMenus().addAll(fileMenu, settingsMenu);
+        // Tools menu
+        Menu toolsMenu = new Menu("Tools");
+        CheckMenuItem hudMenuItem = new CheckMenuItem("Performance HUD");
+        hudMenuItem.setAccelerator(KeyCombination.keyCombination("F3"));
+        hudMenuItem.setSelected(performanceHud.isShowing());
+        hudMenuItem.setOnAction(event -> {
+            performanceHud.setShowing(hudMenuItem.isSelected());
+            prefsManager.savePerformanceHud(hudMenuItem.isSelected());
+        });
+        MenuItem metricsMenuItem = new MenuItem("Dump Metrics");
+        metricsMenuItem.setOnAction(event -> showMetrics());
+        toolsMenu.getItems().addAll(hudMenuItem, metricsMenuItem);
+
+        menuBar.getMenus().addAll(fileMenu, settingsMenu, toolsMenu);
 
         return menuBar;
     }
 
+    private void showMetrics() {
+        TextArea text = new TextArea(MetricsRegistry.getDefault().dump());
+        text.setEditable(false);
+        text.setStyle("-fx-font-family: monospace;");
+        text.setPrefColumnCount(80);
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.initOwner(primaryStage);
+        alert.setTitle("Metrics");
+        alert.setHeaderText("Counters and latencies since startup");
+        alert.getDialogPane().setContent(text);
+        alert.show();
+    }
+
     private void showSettingsDialog() {
         SettingsDialog dialog = new SettingsDialog(currentSettings);
         dialog.showAndWait().ifPresent(newSettings -> {
@@ -193,6 +303,11 @@ public class ImageCarousel extends Application {
                 startImageRotation();
             }
 
+            // A new choice gets a fresh chance at full quality
+            if (oldSettings.transitionType() != newSettings.transitionType()) {
+                transitionController.resetFallback();
+            }
+
             // Update status bar to reflect new settings
             updateStatusBar();
         });
@@ -202,10 +317,9 @@ public class ImageCarousel extends Application {
         StringBuilder info = new StringBuilder();
 
         if (images != null && !images.isEmpty()) {
-            Image currentImage = images.get(currentIndex);
+            ImageEntry currentEntry = images.get(currentIndex);
             info.append(String.format("Image %d of %d", currentIndex + 1, images.size()));
-            info.append(String.format(" (%dx%d)", (int)currentImage.getWidth(),
-                    (int)currentImage.getHeight()));
+            info.append(String.format(" (%dx%d)", currentEntry.width(), currentEntry.height()));
 
             if (currentDirectory != null) {
                 try {
@@ -218,9 +332,13 @@ public class ImageCarousel extends Application {
                 }
             }
 
-            // Add current transition type
-            info.append(" | Transition: ")
-                    .append(currentSettings.transitionType().getDisplayName());
+            // Add current transition type, and what it was reduced to on a slow device
+            TransitionType requested = currentSettings.transitionType();
+            TransitionType effective = transitionController.effectiveType(requested);
+            info.append(" | Transition: ").append(effective.getDisplayName());
+            if (effective != requested) {
+                info.append(" (reduced from ").append(requested.getDisplayName()).append(" to keep up)");
+            }
         }
 
         statusBar.updateImageInfo(info.toString());
@@ -253,8 +371,26 @@ public class ImageCarousel extends Application {
             toggleFullScreenButton.setText(newVal ? "Exit Full Screen" : "Toggle Full Screen");
         });
 
-        primaryStage.widthProperty().addListener((obs, oldVal, newVal) -> handleWindowResize());
-        primaryStage.heightProperty().addListener((obs, oldVal, newVal) -> handleWindowResize());
+        // Width and height change separately, and many times per drag; refit once per pulse
+        resizeTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                stop();
+                handleWindowResize();
+            }
+        };
+        primaryStage.widthProperty().addListener((obs, oldVal, newVal) -> resizeTimer.start());
+        primaryStage.heightProperty().addListener((obs, oldVal, newVal) -> resizeTimer.start());
+
+        // Zooming and panning both move the container; refresh the tiles once per pulse
+        tileTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                stop();
+                updateTiles();
+            }
+        };
+        imageContainer.boundsInParentProperty().addListener((obs, oldVal, newVal) -> tileTimer.start());
 
         toggleFullScreenButton.setOnAction(event -> handleFullScreenToggle());
     }
@@ -269,8 +405,27 @@ public class ImageCarousel extends Application {
         }
 
         primaryStage.show();
-        loadImages(startDirectory);
-        startImageRotationIfPossible();
+        // Rotation starts once the playlist has more than the resumed slide
+        loadImages(startDirectory, findResumeEntry(startDirectory));
+    }
+
+    // Reads just the header of the last slide shown, so it can go up before the scan starts
+    private ImageEntry findResumeEntry(Path directory) {
+        Path lastFile = prefsManager.getLastFile();
+        if (lastFile == null) return null;
+        lastFile = lastFile.toAbsolutePath().normalize();
+        Path normalizedDirectory = directory.toAbsolutePath().normalize();
+        if (!lastFile.startsWith(normalizedDirectory) || !Files.isRegularFile(lastFile)) {
+            return null;
+        }
+        // Use the path in the form the scan will report it, so the two entries match
+        Path file = directory.toAbsolutePath().resolve(normalizedDirectory.relativize(lastFile));
+        try {
+            return ImageHeaderReader.read(file);
+        } catch (IOException e) {
+            System.err.println("Could not resume at " + file.getFileName() + ": " + e.getMessage());
+            return null;
+        }
     }
 
     private void toggleThumbnailView() {
@@ -297,6 +452,7 @@ public class ImageCarousel extends Application {
 
     private void showPreviousImage() {
         if (images != null && !images.isEmpty()) {
+            navigationDirection = -1;
             currentIndex = (currentIndex - 1 + images.size()) % images.size();
             setImage(images.get(currentIndex));
         }
@@ -304,43 +460,287 @@ public class ImageCarousel extends Application {
 
     private void showNextImage() {
         if (images != null && !images.isEmpty()) {
+            navigationDirection = 1;
             currentIndex = (currentIndex + 1) % images.size();
             setImage(images.get(currentIndex));
         }
     }
 
     public void loadImages(Path directory) {
-        try {
-            currentDirectory = directory;
-            System.out.println("Loading images from: " + directory.toAbsolutePath());
-            statusBar.updateDirectory(directory.getFileName().toString());
-
-            ImageLoader imageLoader = new ImageLoader(directory);
-            images = imageLoader.loadImages();
-
-            if (!images.isEmpty()) {
-                System.out.println("Found " + images.size() + " images");
-                currentIndex = 0;
-                setImage(images.get(currentIndex));
-                prefsManager.saveLastDirectory(directory);
-                updateNavigationButtons(true);
+        loadImages(directory, null);
+    }
+
+    private void loadImages(Path directory, ImageEntry resume) {
+        cancelCurrentLoad();
+        stopWatching();
+        currentDirectory = directory;
+        prefetcher.cancel();
+        imageCache.clear();
+        images = new ArrayList<>();
+        currentIndex = 0;
+        playlistStarted = false;
+        resumePath = null;
+        updateNavigationButtons(false);
+
+        System.out.println("Loading images from: " + directory.toAbsolutePath());
+        statusBar.updateDirectory(directory.getFileName().toString());
+        statusBar.showLoadProgress(0, 0, true);
+
+        if (resume != null) {
+            images.add(resume);
+            resumePath = resume.path();
+            setImage(resume);
+            zoomController.restore(prefsManager.getZoomState());
+        }
+
+        // Show the catalogued playlist right away; the scan below reconciles it
+        DirectoryCatalog catalog = DirectoryCatalog.forDirectory(directory);
+        List<ImageEntry> catalogued = catalog.load();
+        boolean fromCatalog = !catalogued.isEmpty();
+        if (fromCatalog) {
+            addToPlaylist(catalogued);
+        }
+
+        ImageLoader imageLoader = new ImageLoader(directory, decodeExecutor);
+        List<ImageEntry> scanned = new ArrayList<>();
+        currentLoad = imageLoader.loadImagesAsync(new DirectoryLoadTask.Listener() {
+            @Override
+            public void onBatch(List<ImageEntry> batch) {
+                scanned.addAll(batch);
+                if (!fromCatalog) {
+                    addToPlaylist(batch);
+                }
+            }
+
+            @Override
+            public void onProgress(int loaded, int found, boolean scanning) {
+                statusBar.showLoadProgress(loaded, found, scanning);
+            }
+
+            @Override
+            public void onComplete(int total) {
+                statusBar.clearLoadProgress();
+                if (fromCatalog) {
+                    reconcileWithCatalog(catalogued, scanned);
+                }
+                saveCatalog(catalog, scanned);
+                if (total > 0) {
+                    System.out.println("Found " + total + " images");
+                    prefsManager.saveLastDirectory(directory);
+                } else {
+                    System.out.println("No images found in directory");
+                    statusBar.showError("No images found in selected directory");
+                    clearDisplay();
+                }
+                if (prefsManager.getWatchDirectory()) {
+                    startWatching();
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                String error = e instanceof SecurityException || e instanceof AccessDeniedException
+                        ? "Access denied to directory: " + directory
+                        : "Error loading images: " + e.getMessage();
+                System.err.println(error);
+                // Ends the load in place of onComplete, so the partial scan is not catalogued
+                statusBar.clearLoadProgress();
+                statusBar.showError(error);
+            }
+        }, catalogued);
+    }
+
+    // The first entries start the show; later ones only grow the playlist
+    private void addToPlaylist(List<ImageEntry> entries) {
+        for (ImageEntry entry : entries) {
+            if (resumePath == null) {
+                images.add(entry);
+            } else if (entry.path().equals(resumePath)) {
+                images.set(currentIndex, entry);
+                resumePath = null;
             } else {
-                System.out.println("No images found in directory");
-                statusBar.showError("No images found in selected directory");
-                imageContainer.getChildren().clear();
-                updateNavigationButtons(false);
+                // Found ahead of the resumed slide, so it belongs in front of it
+                images.add(currentIndex++, entry);
             }
-        } catch (SecurityException e) {
-            String error = "Access denied to directory: " + directory;
-            System.err.println(error);
-            statusBar.showError(error);
-            updateNavigationButtons(false);
-        } catch (Exception e) {
-            String error = "Error loading images: " + e.getMessage();
-            System.err.println(error);
-            statusBar.showError(error);
+        }
+        if (images.isEmpty()) return;
+
+        if (playlistStarted) {
+            updateStatusBar();
+            return;
+        }
+        playlistStarted = true;
+        if (images.get(currentIndex).equals(displayedEntry)) {
+            pinAroundCurrent();
+            prefetcher.prefetch(images, currentIndex, navigationDirection,
+                    Duration.seconds(currentSettings.rotationSpeed()));
+            updateStatusBar();
+        } else {
+            setImage(images.get(currentIndex));
+        }
+        updateNavigationButtons(true);
+        startImageRotationIfPossible();
+    }
+
+    // Turns the difference between the catalog and the scan into a playlist update
+    private void reconcileWithCatalog(List<ImageEntry> catalogued, List<ImageEntry> scanned) {
+        Set<ImageEntry> known = new HashSet<>(catalogued);
+        Set<Path> removed = new HashSet<>();
+        catalogued.forEach(entry -> removed.add(entry.path()));
+
+        List<ImageEntry> updated = new ArrayList<>();
+        for (ImageEntry entry : scanned) {
+            removed.remove(entry.path());
+            if (!known.contains(entry)) {
+                updated.add(entry);
+            }
+        }
+        if (!updated.isEmpty() || !removed.isEmpty()) {
+            applyDirectoryChanges(updated, removed);
+        }
+    }
+
+    private void saveCatalog(DirectoryCatalog catalog, List<ImageEntry> entries) {
+        List<ImageEntry> snapshot = List.copyOf(entries);
+        catalogSaver.execute(() -> catalog.save(snapshot));
+    }
+
+    private void cancelCurrentLoad() {
+        if (currentLoad != null) {
+            currentLoad.cancel();
+            currentLoad = null;
+        }
+        statusBar.clearLoadProgress();
+    }
+
+    private void startWatching() {
+        if (directoryWatcher != null || currentDirectory == null || isLoading()) return;
+        try {
+            directoryWatcher = new ImageLoader(currentDirectory, decodeExecutor).watch(new DirectoryWatcher.Listener() {
+                @Override
+                public void onChanges(List<ImageEntry> updated, Set<Path> removed) {
+                    applyDirectoryChanges(updated, removed);
+                }
+
+                @Override
+                public void onOverflow() {
+                    System.out.println("Missed directory events, rescanning " + currentDirectory);
+                    rescanDirectory();
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Could not watch directory: " + e.getMessage());
+            statusBar.showError("Could not watch directory: " + currentDirectory);
+        }
+    }
+
+    // Reconciles a fresh scan with the playlist, so the show carries on from the current slide
+    private void rescanDirectory() {
+        cancelCurrentLoad();
+        stopWatching();
+        Path directory = currentDirectory;
+        List<ImageEntry> playlist = List.copyOf(images);
+        List<ImageEntry> scanned = new ArrayList<>();
+        currentLoad = new ImageLoader(directory, decodeExecutor).loadImagesAsync(new DirectoryLoadTask.Listener() {
+            @Override
+            public void onBatch(List<ImageEntry> batch) {
+                scanned.addAll(batch);
+            }
+
+            @Override
+            public void onProgress(int loaded, int found, boolean scanning) {
+                statusBar.showLoadProgress(loaded, found, scanning);
+            }
+
+            @Override
+            public void onComplete(int total) {
+                statusBar.clearLoadProgress();
+                reconcileWithCatalog(playlist, scanned);
+                saveCatalog(DirectoryCatalog.forDirectory(directory), scanned);
+                if (prefsManager.getWatchDirectory()) {
+                    startWatching();
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                System.err.println("Error rescanning directory: " + e.getMessage());
+                statusBar.clearLoadProgress();
+                statusBar.showError("Error rescanning directory: " + directory);
+            }
+        }, playlist);
+    }
+
+    private void stopWatching() {
+        if (directoryWatcher != null) {
+            directoryWatcher.close();
+            directoryWatcher = null;
+        }
+    }
+
+    // Applies watcher changes in one pass over the playlist, keeping the current slide in place
+    private void applyDirectoryChanges(List<ImageEntry> updated, Set<Path> removed) {
+        Map<Path, ImageEntry> changed = new LinkedHashMap<>();
+        updated.forEach(entry -> changed.put(entry.path(), entry));
+
+        boolean wasEmpty = images.isEmpty();
+        boolean currentChanged = false;
+        int newIndex = -1;
+        List<ImageEntry> playlist = new ArrayList<>(images.size() + changed.size());
+        for (int i = 0; i < images.size(); i++) {
+            ImageEntry entry = images.get(i);
+            if (i == currentIndex) {
+                // If the current slide goes away, the one after it takes its place
+                newIndex = playlist.size();
+            }
+            ImageEntry replacement = changed.remove(entry.path());
+            boolean gone = replacement == null && isRemoved(entry.path(), removed);
+            if (replacement != null || gone) {
+                imageCache.invalidate(entry);
+                currentChanged |= i == currentIndex;
+            }
+            if (!gone) {
+                playlist.add(replacement != null ? replacement : entry);
+            }
+        }
+        // Whatever is left is new to the playlist
+        playlist.addAll(changed.values());
+
+        images.clear();
+        images.addAll(playlist);
+        if (images.isEmpty()) {
+            currentIndex = 0;
+            stopImageRotation();
             updateNavigationButtons(false);
+            clearDisplay();
+            statusBar.showError("No images found in selected directory");
+            updateStatusBar();
+            return;
+        }
+
+        currentIndex = newIndex >= 0 && newIndex < images.size() ? newIndex : 0;
+        if (showingThumbnails) {
+            thumbnailView.setImages(images, currentIndex);
         }
+        if (wasEmpty || currentChanged) {
+            setImage(images.get(currentIndex));
+        } else {
+            pinAroundCurrent();
+            updateStatusBar();
+        }
+        if (wasEmpty) {
+            updateNavigationButtons(true);
+            startImageRotationIfPossible();
+        }
+    }
+
+    private boolean isRemoved(Path path, Set<Path> removed) {
+        if (removed.isEmpty()) return false;
+        // A removed directory takes everything beneath it
+        for (Path candidate = path; candidate != null; candidate = candidate.getParent()) {
+            if (removed.contains(candidate)) return true;
+        }
+        return false;
     }
 
     private void updateNavigationButtons(boolean enabled) {
@@ -372,79 +772,161 @@ public class ImageCarousel extends Application {
         rotationTimeline.play();
     }
 
+    // Refits the slide already on screen: no new view, no transition, no zoom reset
     private void handleWindowResize() {
-        if (images != null && !images.isEmpty()) {
-            setImage(images.get(currentIndex));
+        if (currentView == null || displayedEntry == null) return;
+
+        ImageEntry entry = displayedEntry;
+        double windowWidth = getDisplayWidth();
+        double windowHeight = getDisplayHeight();
+        imageCache.setDisplaySize(windowWidth * primaryStage.getOutputScaleX(),
+                windowHeight * primaryStage.getOutputScaleY());
+        fitToWindow(currentView, entry, windowWidth, windowHeight);
+        tileTimer.start();
+
+        // Growing the window may need more pixels than the current decode has
+        Image image = imageCache.get(entry);
+        if (image != currentView.getImage()) {
+            swapWhenLoaded(currentView, entry, image);
         }
     }
 
-    public void setImage(Image image) {
-        if (image == null) return;
+    private double getDisplayWidth() {
+        return primaryStage.getWidth();
+    }
 
-        ImageView oldView = getCurrentImageView();
-        ImageView newView = new ImageView(image);
-        newView.setPreserveRatio(true);
+    private double getDisplayHeight() {
+        return primaryStage.getHeight()
+                - toolBar.getBoundsInLocal().getHeight()
+                - menuBar.getBoundsInLocal().getHeight()
+                - statusBar.getHeight();
+    }
 
-        // Calculate scaling to fit the window
-        double windowWidth = primaryStage.getWidth();
-        double windowHeight = primaryStage.getHeight()
-                              - root.lookup(".tool-bar").getBoundsInLocal().getHeight()
-                              - root.lookup(".menu-bar").getBoundsInLocal().getHeight()
-                              - statusBar.getHeight();
-
-        double scale = Math.min(
-                windowWidth / image.getWidth(),
-                windowHeight / image.getHeight()
+    // Header dimensions are known before the background decode finishes
+    private static double fitScale(ImageEntry entry, double windowWidth, double windowHeight) {
+        return Math.min(
+                windowWidth / entry.width(),
+                windowHeight / entry.height()
         );
+    }
 
-        newView.setFitWidth(image.getWidth() * scale);
-        newView.setFitHeight(image.getHeight() * scale);
+    private static void fitToWindow(ImageView view, ImageEntry entry, double windowWidth, double windowHeight) {
+        double scale = fitScale(entry, windowWidth, windowHeight);
+        view.setFitWidth(entry.width() * scale);
+        view.setFitHeight(entry.height() * scale);
+    }
 
-        if (oldView != null && !showingThumbnails) {
-            transitionController.transition(oldView, newView,
-                    currentSettings.transitionType());
-        } else {
-            imageContainer.getChildren().clear();
-            imageContainer.getChildren().add(newView);
+    public void setImage(ImageEntry entry) {
+        if (entry == null) return;
+        CarouselEvents.SlideDisplay displayEvent = CarouselEvents.beginSlide(entry);
+
+        if (images != null && !images.isEmpty()) {
+            pinAroundCurrent();
         }
 
-        zoomController.setImage(newView);
+        // Calculate scaling to fit the window
+        double windowWidth = getDisplayWidth();
+        double windowHeight = getDisplayHeight();
+
+        // Decode no larger than the screen pixels the window can actually show
+        imageCache.setDisplaySize(windowWidth * primaryStage.getOutputScaleX(),
+                windowHeight * primaryStage.getOutputScaleY());
+        Image image = imageCache.get(entry);
+
+        boolean redecoding = entry.equals(displayedEntry) && currentView != null && PendingImage.isLoading(image);
+        // Re-decoding the same slide at a higher resolution; keep the old pixels until it is ready
+        Image shown = redecoding ? currentView.getImage() : image;
+
+        double scale = fitScale(entry, windowWidth, windowHeight);
+        TransitionType transition = displayedEntry != null && !showingThumbnails
+                ? currentSettings.transitionType()
+                : TransitionType.NONE;
+        zoomController.resetZoom();
+        // Allow zooming in to twice the image's own resolution
+        zoomController.setMaxZoom(2 / (scale * primaryStage.getOutputScaleX()));
+        deepZoom.clear();
+        transitionController.show(shown, entry.width() * scale, entry.height() * scale, transition);
+
+        currentView = transitionController.getFrontView();
+        displayedEntry = entry;
+        if (redecoding) {
+            swapWhenLoaded(currentView, entry, image);
+        }
+        recordWhenDisplayed(currentView, entry, image, displayEvent);
 
         if (showingThumbnails) {
             thumbnailView.updateSelection(currentIndex);
         }
 
+        if (images != null && !images.isEmpty()) {
+            prefetcher.prefetch(images, currentIndex, navigationDirection,
+                    Duration.seconds(currentSettings.rotationSpeed()));
+        }
+
         updateStatusBar();  // Use the new updateStatusBar method
     }
 
-    private ImageView getCurrentImageView() {
-        return imageContainer.getChildren().stream()
-                .filter(node -> node instanceof ImageView)
-                .map(node -> (ImageView) node)
-                .findFirst()
-                .orElse(null);
+    private void handleZoomChanged(double zoom) {
+        tileTimer.start();
     }
 
-    private void updateStatusBar(Image image) {
-        StringBuilder info = new StringBuilder();
-
-        // Add image count
-        info.append(String.format("Image %d of %d", currentIndex + 1, images.size()));
+    // Past 1:1 on screen the fit-sized decode runs out of pixels; tiles fill in the detail
+    private void updateTiles() {
+        if (currentView == null || displayedEntry == null || zoomController.getCurrentZoom() <= 1.0) {
+            deepZoom.clear();
+            return;
+        }
+        ScrollPane viewport = zoomController.getScrollPane();
+        Bounds visible = imageContainer.sceneToLocal(viewport.localToScene(viewport.getLayoutBounds()));
+        deepZoom.update(displayedEntry, currentView.getBoundsInParent(), visible,
+                zoomController.getCurrentZoom() * primaryStage.getOutputScaleX());
+    }
 
-        // Add image dimensions
-        info.append(String.format(" (%dx%d)", (int)image.getWidth(), (int)image.getHeight()));
+    private void swapWhenLoaded(ImageView view, ImageEntry entry, Image image) {
+        PendingImage.whenLoaded(image, () -> {
+            if (view == currentView && entry.equals(displayedEntry)) {
+                view.setImage(image);
+            }
+        });
+    }
 
-        // Add directory information
-        if (currentDirectory != null) {
-            try {
-                String filename = prefsManager.getLastDirectory().relativize(currentDirectory).toString();
-                info.append(" - ").append(filename);
-            } catch (IllegalArgumentException e) {
-                info.append(" - ").append(currentDirectory.getFileName());
+    // Decoded images report themselves loaded only once their pixels are in, so the
+    // time recorded here covers the whole decode
+    private void recordWhenDisplayed(ImageView view, ImageEntry entry, Image image,
+                                     CarouselEvents.SlideDisplay event) {
+        PendingImage.whenLoaded(image, () -> {
+            if (view == currentView && entry.equals(displayedEntry)) {
+                slideDisplayed(event);
             }
-        }
+        });
+    }
 
-        statusBar.updateImageInfo(info.toString());
+    private void slideDisplayed(CarouselEvents.SlideDisplay event) {
+        CarouselEvents.endSlide(event);
+        if (firstPixelRecorded) return;
+        firstPixelRecorded = true;
+        // Measured from process start, so JVM and toolkit startup count too
+        ProcessHandle.current().info().startInstant().ifPresent(launched -> {
+            long millis = System.currentTimeMillis() - launched.toEpochMilli();
+            MetricsRegistry.getDefault().recordNanos("startup.firstPixel", millis * 1_000_000);
+            System.out.println("First slide shown " + millis + " ms after launch"
+                    + (millis > FIRST_PIXEL_TARGET_MILLIS ? ", over the " + FIRST_PIXEL_TARGET_MILLIS + " ms target" : ""));
+        });
+    }
+
+    private void clearDisplay() {
+        transitionController.clear();
+        currentView = null;
+        displayedEntry = null;
+    }
+
+    private void pinAroundCurrent() {
+        // Keep the current slide and both neighbours decoded regardless of budget
+        int size = images.size();
+        imageCache.pin(List.of(
+                images.get(currentIndex),
+                images.get((currentIndex + 1) % size),
+                images.get((currentIndex - 1 + size) % size)));
     }
 
     private void handleFullScreenToggle() {
@@ -455,6 +937,39 @@ public class ImageCarousel extends Application {
         }
     }
 
+    @Override
+    public void stop() {
+        if (displayedEntry != null) {
+            prefsManager.saveLastFile(displayedEntry.path());
+        }
+        prefsManager.saveZoomState(zoomController.getState());
+        cancelCurrentLoad();
+        stopWatching();
+        prefetcher.cancel();
+        if (thumbnailStore != null) {
+            try {
+                thumbnailStore.close();
+            } catch (IOException e) {
+                System.err.println("Error closing thumbnail cache: " + e.getMessage());
+            }
+        }
+        stopImageRotation();
+        if (resizeTimer != null) resizeTimer.stop();
+        if (tileTimer != null) tileTimer.stop();
+        decodeExecutor.close();
+        finishCatalogSaves();
+    }
+
+    // Give a pending save a moment to land; the catalog is what makes the next start fast
+    private void finishCatalogSaves() {
+        catalogSaver.shutdown();
+        try {
+            catalogSaver.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -464,10 +979,18 @@ public class ImageCarousel extends Application {
         return currentIndex;
     }
 
-    public List<Image> getImages() {
+    public List<ImageEntry> getImages() {
         return images;
     }
 
+    public ImageCache getImageCache() {
+        return imageCache;
+    }
+
+    public boolean isLoading() {
+        return currentLoad != null && !currentLoad.isDone();
+    }
+
     public Button getNextButton() {
         return nextButton;
     }
@@ -475,4 +998,17 @@ public class ImageCarousel extends Application {
     public Button getPreviousButton() {
         return prevButton;
     }
+
+    public ToggleButton getThumbnailsButton() {
+        return thumbsButton;
+    }
+
+    public ThumbnailView getThumbnailView() {
+        return thumbnailView;
+    }
+
+    /** The view showing the current slide, or null before the first one. */
+    public ImageView getCurrentView() {
+        return currentView;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package edu.trincoll;
+
+import javafx.scene.image.Image;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A format-specific decoder that can produce an image at reduced size more cheaply
+ * than decoding it whole and scaling. Implementations are found through
+ * {@link java.util.ServiceLoader}; see {@link ImageDecoders}.
+ */
+public interface ImageDecoder {
+
+    boolean canDecode(ImageFormat format);
+
+    /**
+     * Decodes the image scaled to fit within {@code width} x {@code height}, keeping its
+     * aspect ratio and never enlarging it. Runs on the calling thread.
+     *
+     * @return the image, or null if this file uses a variant of the format the decoder
+     * does not handle
+     */
+    Image decode(Path path, int width, int height) throws IOException;
+}
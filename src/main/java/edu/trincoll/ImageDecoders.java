@@ -0,0 +1,36 @@
+package edu.trincoll;
+
+import javafx.scene.image.Image;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * The installed {@link ImageDecoder}s, loaded once. Formats without a decoder are
+ * left to JavaFX's own image loading.
+ */
+public final class ImageDecoders {
+    private static final List<ImageDecoder> DECODERS = ServiceLoader.load(ImageDecoder.class)
+            .stream()
+            .map(ServiceLoader.Provider::get)
+            .toList();
+
+    private ImageDecoders() {
+    }
+
+    public static ImageDecoder forFormat(ImageFormat format) {
+        for (ImageDecoder decoder : DECODERS) {
+            if (decoder.canDecode(format)) {
+                return decoder;
+            }
+        }
+        return null;
+    }
+
+    /** Decodes on the calling thread, or returns null if no decoder handles the file. */
+    public static Image decode(ImageEntry entry, int width, int height) throws IOException {
+        ImageDecoder decoder = forFormat(entry.format());
+        return decoder != null ? decoder.decode(entry.path(), width, height) : null;
+    }
+}
@@ -0,0 +1,20 @@
+package edu.trincoll;
+
+import java.nio.file.Path;
+
+/**
+ * A validated image file in the playlist. Dimensions come from the file header,
+ * so they are known before (and without) decoding any pixels. Size and modification
+ * time identify the version of the file the entry was read from.
+ */
+public record ImageEntry(Path path, ImageFormat format, int width, int height,
+                         long fileSize, long lastModified) {
+
+    public String url() {
+        return path.toUri().toString();
+    }
+
+    public String fileName() {
+        return path.getFileName().toString();
+    }
+}
@@ -0,0 +1,32 @@
+package edu.trincoll;
+
+import java.util.List;
+
+public enum ImageFormat {
+    JPEG("jpg", "jpeg"),
+    PNG("png"),
+    GIF("gif");
+
+    private final List<String> extensions;
+
+    ImageFormat(String... extensions) {
+        this.extensions = List.of(extensions);
+    }
+
+    public List<String> getExtensions() {
+        return extensions;
+    }
+
+    public static ImageFormat fromFileName(String fileName) {
+        String name = fileName.toLowerCase();
+        int dot = name.lastIndexOf('.');
+        if (dot < 0) return null;
+        String extension = name.substring(dot + 1);
+        for (ImageFormat format : values()) {
+            if (format.extensions.contains(extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,140 @@
+package edu.trincoll;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Reads just enough of an image file to identify its container format and pixel
+ * dimensions: the JPEG SOF segment, the PNG IHDR chunk, or the GIF logical screen
+ * descriptor. No pixel data is decoded.
+ */
+public final class ImageHeaderReader {
+    private static final int BUFFER_SIZE = 4096;
+    private static final byte[] PNG_SIGNATURE = {
+            (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'
+    };
+    private static final int PNG_IHDR = 0x49484452;
+
+    private record Header(ImageFormat format, int width, int height) {
+    }
+
+    private ImageHeaderReader() {
+    }
+
+    public static ImageEntry read(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE)) {
+            Header header = readHeader(new DataInputStream(input));
+            return new ImageEntry(path, header.format(), header.width(), header.height(),
+                    attributes.size(), attributes.lastModifiedTime().toMillis());
+        }
+    }
+
+    private static Header readHeader(DataInputStream in) throws IOException {
+        int first = in.readUnsignedByte();
+        int second = in.readUnsignedByte();
+
+        if (first == 0xFF && second == 0xD8) {
+            return readJpeg(in);
+        }
+        if (first == (PNG_SIGNATURE[0] & 0xFF) && second == PNG_SIGNATURE[1]) {
+            return readPng(in);
+        }
+        if (first == 'G' && second == 'I') {
+            return readGif(in);
+        }
+        throw new IOException("Unrecognized image header");
+    }
+
+    private static Header readJpeg(DataInputStream in) throws IOException {
+        while (true) {
+            int marker = nextJpegMarker(in);
+
+            // Standalone markers carry no length field
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                continue;
+            }
+            if (marker == 0xD9 || marker == 0xDA) {
+                throw new IOException("JPEG has no frame header before scan data");
+            }
+
+            int length = in.readUnsignedShort();
+            if (length < 2) {
+                throw new IOException("Invalid JPEG segment length " + length);
+            }
+
+            if (isStartOfFrame(marker)) {
+                in.readUnsignedByte(); // sample precision
+                int height = in.readUnsignedShort();
+                int width = in.readUnsignedShort();
+                return header(ImageFormat.JPEG, width, height);
+            }
+            in.skipNBytes(length - 2);
+        }
+    }
+
+    private static int nextJpegMarker(DataInputStream in) throws IOException {
+        if (in.readUnsignedByte() != 0xFF) {
+            throw new IOException("Corrupt JPEG segment structure");
+        }
+        int marker = in.readUnsignedByte();
+        // Any number of 0xFF fill bytes may precede the marker code
+        while (marker == 0xFF) {
+            marker = in.readUnsignedByte();
+        }
+        return marker;
+    }
+
+    private static boolean isStartOfFrame(int marker) {
+        // SOF0-SOF15, excluding DHT (C4), JPG (C8) and DAC (CC)
+        return marker >= 0xC0 && marker <= 0xCF
+                && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    private static Header readPng(DataInputStream in) throws IOException {
+        for (int i = 2; i < PNG_SIGNATURE.length; i++) {
+            if (in.readUnsignedByte() != (PNG_SIGNATURE[i] & 0xFF)) {
+                throw new IOException("Invalid PNG signature");
+            }
+        }
+        in.readInt(); // IHDR chunk length
+        if (in.readInt() != PNG_IHDR) {
+            throw new IOException("PNG does not start with an IHDR chunk");
+        }
+        int width = in.readInt();
+        int height = in.readInt();
+        return header(ImageFormat.PNG, width, height);
+    }
+
+    private static Header readGif(DataInputStream in) throws IOException {
+        byte[] rest = new byte[4];
+        in.readFully(rest);
+        String version = new String(rest, StandardCharsets.US_ASCII);
+        if (!version.equals("F87a") && !version.equals("F89a")) {
+            throw new IOException("Invalid GIF signature");
+        }
+        // Logical screen descriptor stores dimensions little-endian
+        int width = readUnsignedShortLE(in);
+        int height = readUnsignedShortLE(in);
+        return header(ImageFormat.GIF, width, height);
+    }
+
+    private static int readUnsignedShortLE(DataInputStream in) throws IOException {
+        int low = in.readUnsignedByte();
+        int high = in.readUnsignedByte();
+        return (high << 8) | low;
+    }
+
+    private static Header header(ImageFormat format, int width, int height) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IOException("Invalid image dimensions " + width + "x" + height);
+        }
+        return new Header(format, width, height);
+    }
+}
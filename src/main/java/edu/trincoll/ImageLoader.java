@@ -1,64 +1,240 @@
 package edu.trincoll;
 
+import javafx.application.Platform;
 import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 public class ImageLoader {
+    // Results held in flight per thread by the synchronous load
+    private static final int WINDOW_PER_THREAD = 4;
+    // Images whose full raster would take more than this share of the heap are never
+    // decoded whole; they are read subsampled, and in regions when zoomed
+    private static final long LARGE_IMAGE_BYTES = Runtime.getRuntime().maxMemory() / 8;
+
     private final Path resourcesPath;
-    private final Map<Image, String> imageFilenames = new HashMap<>();
+    private final DecodeExecutor executor;
 
     public ImageLoader(Path resourcesPath) {
+        this(resourcesPath, DecodeExecutor.getDefault());
+    }
+
+    public ImageLoader(Path resourcesPath, DecodeExecutor executor) {
         this.resourcesPath = resourcesPath.toAbsolutePath();
+        this.executor = executor;
     }
 
-    public List<Image> loadImages() {
+    public List<ImageEntry> loadImages() {
         try (Stream<Path> paths = Files.walk(resourcesPath)) {
-            return paths
+            Iterator<Path> candidates = paths
                     .filter(Files::isRegularFile)
                     .filter(this::isSupportedImage)
-                    .map(this::loadImage)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
+                    .iterator();
+
+            // Validate in parallel with a bounded window, collecting results in walk order
+            List<ImageEntry> images = new ArrayList<>();
+            Deque<CompletableFuture<ImageEntry>> window = new ArrayDeque<>();
+            int windowSize = executor.getParallelism() * WINDOW_PER_THREAD;
+            while (candidates.hasNext()) {
+                Path candidate = candidates.next();
+                window.add(executor.submitIo(() -> loadImage(candidate)));
+                if (window.size() >= windowSize) {
+                    addIfValid(images, window.poll());
+                }
+            }
+            while (!window.isEmpty()) {
+                addIfValid(images, window.poll());
+            }
+            return images;
         } catch (IOException e) {
             System.err.println("Error scanning resources directory: " + e.getMessage());
             return List.of();
         }
     }
 
+    private static void addIfValid(List<ImageEntry> images, CompletableFuture<ImageEntry> result) {
+        ImageEntry entry = result.join();
+        if (entry != null) {
+            images.add(entry);
+        }
+    }
+
+    public DirectoryLoadTask loadImagesAsync(DirectoryLoadTask.Listener listener) {
+        return loadImagesAsync(listener, List.of());
+    }
+
+    // Entries already known from a catalog are reused when the file is unchanged,
+    // which costs a stat instead of a header read
+    public DirectoryLoadTask loadImagesAsync(DirectoryLoadTask.Listener listener,
+                                             Collection<ImageEntry> known) {
+        Map<Path, ImageEntry> knownByPath = new HashMap<>();
+        known.forEach(entry -> knownByPath.put(entry.path(), entry));
+
+        DirectoryLoadTask task = new DirectoryLoadTask(resourcesPath, this::isSupportedImage,
+                path -> {
+                    ImageEntry entry = knownByPath.get(path);
+                    return entry != null && isUnchanged(entry) ? entry : loadImage(path);
+                }, listener, executor);
+        task.start();
+        return task;
+    }
+
+    private static boolean isUnchanged(ImageEntry entry) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(entry.path(), BasicFileAttributes.class);
+            return attributes.size() == entry.fileSize()
+                    && attributes.lastModifiedTime().toMillis() == entry.lastModified();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public DirectoryWatcher watch(DirectoryWatcher.Listener listener) throws IOException {
+        DirectoryWatcher watcher = new DirectoryWatcher(resourcesPath, this::isSupportedImage,
+                this::loadImage, listener);
+        watcher.start();
+        return watcher;
+    }
+
+    // Starts a background decode; pixels are only read once an image is actually shown.
+    // Images larger than the requested size are scaled down while decoding.
+    public static Image decode(ImageEntry entry, int width, int height, DecodeExecutor executor) {
+        if (isLarge(entry)) {
+            return decodePreview(entry, width, height, executor);
+        }
+        boolean fullSize = width >= entry.width() && height >= entry.height();
+        if (entry.format() == ImageFormat.GIF) {
+            // A WritableImage holds one frame, so animated GIFs keep JavaFX's own loader
+            CarouselEvents.Decode event = CarouselEvents.beginDecode(entry, "slide");
+            Image image = fullSize
+                    ? new Image(entry.url(), true)
+                    : new Image(entry.url(), width, height, true, true, true);
+            CarouselEvents.endDecode(event, image);
+            return image;
+        }
+        return decodeMapped(entry, fullSize ? entry.width() : width, fullSize ? entry.height() : height,
+                fullSize, executor);
+    }
+
+    // Reads the file through MappedFileInput on a decode thread, with JavaFX's own
+    // decoder and smooth scaling, then writes the pixels into the placeholder
+    private static Image decodeMapped(ImageEntry entry, int width, int height, boolean fullSize,
+                                      DecodeExecutor executor) {
+        PendingImage image = new PendingImage(width, height);
+        submit(image, executor, () -> {
+            CarouselEvents.Decode event = CarouselEvents.beginDecode(entry, "slide");
+            try (InputStream input = MappedFileInput.openStream(entry.path())) {
+                Image decoded = fullSize ? new Image(input) : new Image(input, width, height, true, true);
+                if (decoded.isError()) {
+                    throw new IOException(decoded.getException() != null
+                            ? decoded.getException().getMessage() : "unreadable image");
+                }
+                CarouselEvents.endDecode(event, decoded);
+                int[] pixels = resample(decoded, width, height);
+                Platform.runLater(() -> image.complete(pixels));
+                return null;
+            } catch (IOException e) {
+                System.err.println("Could not decode " + entry.fileName() + ": " + e.getMessage());
+                throw new UncheckedIOException(e);
+            }
+        });
+        return image;
+    }
+
+    public static boolean isLarge(ImageEntry entry) {
+        return (long) entry.width() * entry.height() * 4 > LARGE_IMAGE_BYTES;
+    }
+
+    // Decodes at reduced size on a decode thread, through a format decoder when there
+    // is one and otherwise a subsampling reader, so only a preview-sized raster is ever
+    // held. The returned image stays black, and reports itself as loading, until its
+    // pixels arrive.
+    static Image decodePreview(ImageEntry entry, int width, int height, DecodeExecutor executor) {
+        PendingImage preview = new PendingImage(width, height);
+        submit(preview, executor, () -> {
+            CarouselEvents.Decode event = CarouselEvents.beginDecode(entry, "slide");
+            try {
+                Image decoded = ImageDecoders.decode(entry, width, height);
+                if (decoded == null) {
+                    decoded = RegionDecoder.decode(entry.path(), null,
+                            RegionDecoder.subsamplingFor(entry.width(), entry.height(), width, height));
+                }
+                CarouselEvents.endDecode(event, decoded);
+                int[] pixels = resample(decoded, width, height);
+                Platform.runLater(() -> preview.complete(pixels));
+                return null;
+            } catch (IOException e) {
+                System.err.println("Could not decode preview of " + entry.fileName() + ": " + e.getMessage());
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+                System.err.println("Could not decode preview of " + entry.fileName() + ": " + e.getMessage());
+                throw e;
+            }
+        });
+        return preview;
+    }
+
+    // The FX thread must not wait for room in the decode queue, so work the full queue
+    // turns away is offered again shortly, unless the image is cancelled meanwhile
+    private static void submit(PendingImage image, DecodeExecutor executor, Supplier<Void> work) {
+        CompletableFuture<Void> decode = executor.submitDecode(work);
+        if (executor.isQueueFull(decode)) {
+            image.retryLater(() -> submit(image, executor, work));
+        } else {
+            image.track(decode);
+        }
+    }
+
+    // Nearest-neighbour; the source is at most about twice the target in each direction,
+    // and usually off from it by a rounding pixel
+    private static int[] resample(Image source, int width, int height) {
+        int sourceWidth = (int) source.getWidth();
+        int sourceHeight = (int) source.getHeight();
+        int[] pixels = new int[sourceWidth * sourceHeight];
+        source.getPixelReader().getPixels(0, 0, sourceWidth, sourceHeight,
+                PixelFormat.getIntArgbInstance(), pixels, 0, sourceWidth);
+        if (sourceWidth == width && sourceHeight == height) {
+            return pixels;
+        }
+
+        int[] resampled = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            int sourceRow = (int) ((long) y * sourceHeight / height) * sourceWidth;
+            for (int x = 0; x < width; x++) {
+                resampled[y * width + x] = pixels[sourceRow + (int) ((long) x * sourceWidth / width)];
+            }
+        }
+        return resampled;
+    }
+
     private boolean isSupportedImage(Path path) {
-        String name = path.getFileName().toString().toLowerCase();
-        boolean isSupported = name.endsWith(".jpg") ||
-                              name.endsWith(".jpeg") ||
-                              name.endsWith(".png") ||
-                              name.endsWith(".gif");
+        String name = path.getFileName().toString();
+        boolean isSupported = ImageFormat.fromFileName(name) != null;
         if (!isSupported) {
-            System.out.println("Skipping unsupported file type: " + name);
+            System.out.println("Skipping unsupported file type: " + name.toLowerCase());
         }
         return isSupported;
     }
 
-    private Image loadImage(Path path) {
-        try (var input = Files.newInputStream(path)) {
-            Image img = new Image(input);
-            if (!img.isError() && img.getWidth() > 0) {
-                String fileUri = path.toUri().toString();
-                Image finalImg = new Image(fileUri, true);
-                imageFilenames.put(finalImg, path.getFileName().toString());
-                return finalImg;
-            }
-            System.err.println("Initial load failed for " + path.getFileName() + " (width=" + img.getWidth() + ")");
+    // Validates the file from its header alone, without decoding any pixels
+    private ImageEntry loadImage(Path path) {
+        try {
+            return ImageHeaderReader.read(path);
+        } catch (IOException e) {
+            System.err.println("Invalid image " + path.getFileName() + ": " + e.getMessage());
         } catch (Exception e) {
             System.err.println("Error loading " + path.getFileName() + ": " + e.getMessage());
         }
         return null;
     }
-
-    public String getImageFilename(Image image) {
-        return imageFilenames.get(image);
-    }
-}
\ No newline at end of file
+}
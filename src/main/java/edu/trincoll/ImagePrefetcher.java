@@ -0,0 +1,105 @@
+package edu.trincoll;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.scene.image.Image;
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decodes upcoming slides into the {@link ImageCache} ahead of time. Slides in the
+ * current navigation direction are requested first, and all requests are spread over
+ * the first half of the rotation interval so the next slide is ready before the
+ * rotation timeline fires.
+ */
+public class ImagePrefetcher {
+    private final ImageCache cache;
+    private final int aheadDepth;
+    private final int behindDepth;
+    private final Map<ImageEntry, Image> inFlight = new HashMap<>();
+    private Timeline schedule;
+
+    public ImagePrefetcher(ImageCache cache, int aheadDepth, int behindDepth) {
+        this.cache = cache;
+        this.aheadDepth = aheadDepth;
+        this.behindDepth = behindDepth;
+    }
+
+    public void prefetch(List<ImageEntry> playlist, int currentIndex, int direction,
+                         Duration slideInterval) {
+        stopSchedule();
+        List<ImageEntry> window = window(playlist, currentIndex, direction);
+
+        // Anything still decoding outside the new window is stale, unless it is the
+        // slide now on screen
+        Set<ImageEntry> keep = new HashSet<>(window);
+        keep.add(playlist.get(currentIndex));
+        cancelStale(keep);
+        if (window.isEmpty()) return;
+
+        double spacing = slideInterval.toMillis() / 2 / window.size();
+        schedule = new Timeline();
+        for (int i = 0; i < window.size(); i++) {
+            ImageEntry entry = window.get(i);
+            schedule.getKeyFrames().add(new KeyFrame(Duration.millis(i * spacing), e -> request(entry)));
+        }
+        schedule.play();
+    }
+
+    public void cancel() {
+        stopSchedule();
+        cancelStale(Set.of());
+    }
+
+    private List<ImageEntry> window(List<ImageEntry> playlist, int currentIndex, int direction) {
+        int size = playlist.size();
+        if (size <= 1) return List.of();
+
+        // Ordered by priority: the direction of travel first, then the way we came
+        Set<ImageEntry> window = new LinkedHashSet<>();
+        for (int step = 1; step <= aheadDepth; step++) {
+            window.add(playlist.get(Math.floorMod(currentIndex + step * direction, size)));
+        }
+        for (int step = 1; step <= behindDepth; step++) {
+            window.add(playlist.get(Math.floorMod(currentIndex - step * direction, size)));
+        }
+        window.remove(playlist.get(currentIndex));
+        return new ArrayList<>(window);
+    }
+
+    private void request(ImageEntry entry) {
+        if (cache.contains(entry)) return;
+        Image image = cache.get(entry);
+        if (PendingImage.isLoading(image)) {
+            inFlight.put(entry, image);
+        }
+    }
+
+    private void cancelStale(Set<ImageEntry> keep) {
+        inFlight.entrySet().removeIf(flight -> {
+            if (!PendingImage.isLoading(flight.getValue())) {
+                return true;
+            }
+            if (!keep.contains(flight.getKey())) {
+                // A half-decoded image is of no use to anyone, so drop it from the cache too
+                cache.invalidate(flight.getKey());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void stopSchedule() {
+        if (schedule != null) {
+            schedule.stop();
+            schedule = null;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package edu.trincoll;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageInputStreamImpl;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Opens image files for decoding. Larger files are memory-mapped, so decoders read
+ * straight from the page cache instead of through a read() call and a heap buffer per
+ * chunk. Small files, where setting up the mapping costs more than it saves, and file
+ * systems that cannot map are read through a buffered stream instead.
+ * <p>
+ * A mapping is only released when its buffer is garbage collected. Windows keeps a
+ * mapped file locked until then, so the user could not delete or rename an image
+ * shortly after viewing it; files are never mapped there.
+ */
+public final class MappedFileInput {
+    static final long MIN_MAPPED_BYTES = 256 * 1024;
+    static final boolean MAPPING_ENABLED = !System.getProperty("os.name", "").startsWith("Windows");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private MappedFileInput() {
+    }
+
+    public static InputStream openStream(Path path) throws IOException {
+        ByteBuffer mapped = map(path);
+        return mapped != null
+                ? new ByteBufferInputStream(mapped)
+                : new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+    }
+
+    /** An ImageIO stream over the file, or null if ImageIO cannot open it. */
+    public static ImageInputStream openImageStream(Path path) throws IOException {
+        ByteBuffer mapped = map(path);
+        return mapped != null
+                ? new ByteBufferImageInputStream(mapped)
+                : ImageIO.createImageInputStream(path.toFile());
+    }
+
+    /** The whole file mapped read-only, or null if it is too small or cannot be mapped. */
+    static ByteBuffer map(Path path) throws IOException {
+        if (!MAPPING_ENABLED) return null;
+        long size = Files.size(path);
+        if (size < MIN_MAPPED_BYTES || size > Integer.MAX_VALUE) return null;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping outlives the channel; elsewhere than Windows the file can still
+            // be deleted or renamed while it is mapped
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (UnsupportedOperationException e) {
+            return null;
+        } catch (IOException e) {
+            // Some network and virtual file systems refuse to map; reading still works
+            System.err.println("Could not map " + path.getFileName() + ", reading instead: " + e.getMessage());
+            return null;
+        }
+    }
+
+    static InputStream stream(ByteBuffer buffer) {
+        return new ByteBufferInputStream(buffer);
+    }
+
+    static ImageInputStream imageStream(ByteBuffer buffer) {
+        return new ByteBufferImageInputStream(buffer);
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            Objects.checkFromIndexSize(offset, length, bytes.length);
+            if (length == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.min(Math.max(0, n), buffer.remaining());
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    // Random access for ImageIO readers, which seek around the file
+    private static final class ByteBufferImageInputStream extends ImageInputStreamImpl {
+        private final ByteBuffer buffer;
+
+        ByteBufferImageInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkClosed();
+            bitOffset = 0;
+            if (streamPos >= buffer.limit()) return -1;
+            return buffer.get((int) streamPos++) & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            checkClosed();
+            Objects.checkFromIndexSize(offset, length, bytes.length);
+            bitOffset = 0;
+            if (length == 0) return 0;
+            if (streamPos >= buffer.limit()) return -1;
+            int count = (int) Math.min(length, buffer.limit() - streamPos);
+            buffer.get((int) streamPos, bytes, offset, count);
+            streamPos += count;
+            return count;
+        }
+
+        @Override
+        public long length() {
+            return buffer.limit();
+        }
+    }
+}
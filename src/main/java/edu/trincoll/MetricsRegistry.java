@@ -0,0 +1,107 @@
+package edu.trincoll;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process counters and latency histograms for the hot paths, cheap enough to
+ * leave on in production. Histograms count into power-of-two buckets, so percentiles
+ * are upper bounds accurate to within a factor of two. {@link #dump()} formats
+ * everything for the log.
+ */
+public class MetricsRegistry {
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentSkipListMap<>();
+
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    public void increment(String name) {
+        add(name, 1);
+    }
+
+    public void add(String name, long amount) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).add(amount);
+    }
+
+    public void recordNanos(String name, long nanos) {
+        latencies.computeIfAbsent(name, key -> new LatencyHistogram()).record(nanos);
+    }
+
+    public long getCount(String name) {
+        LongAdder counter = counters.get(name);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    /** The histogram recorded under {@code name}, or null if nothing was recorded. */
+    public LatencyHistogram getLatency(String name) {
+        return latencies.get(name);
+    }
+
+    public String dump() {
+        StringBuilder out = new StringBuilder("Counters\n");
+        counters.forEach((name, counter) ->
+                out.append(String.format(Locale.ROOT, "  %-28s %,12d%n", name, counter.sum())));
+        out.append(String.format(Locale.ROOT, "%-24s %8s %9s %9s %9s %9s%n",
+                "Latencies (ms)", "count", "mean", "p50", "p99", "max"));
+        latencies.forEach((name, histogram) ->
+                out.append(String.format(Locale.ROOT, "  %-22s %,8d %9.2f %9.2f %9.2f %9.2f%n", name,
+                        histogram.count(), histogram.meanMillis(), histogram.percentileMillis(0.5),
+                        histogram.percentileMillis(0.99), histogram.maxMillis())));
+        return out.toString();
+    }
+
+    public static final class LatencyHistogram {
+        // Bucket i holds durations below 2^i nanoseconds and at least half that
+        private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong lastNanos = new AtomicLong();
+
+        void record(long nanos) {
+            long value = Math.max(0, nanos);
+            buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+            count.increment();
+            totalNanos.add(value);
+            maxNanos.accumulateAndGet(value, Math::max);
+            lastNanos.set(value);
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public double meanMillis() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / 1e6 / n;
+        }
+
+        public double lastMillis() {
+            return lastNanos.get() / 1e6;
+        }
+
+        public double maxMillis() {
+            return maxNanos.get() / 1e6;
+        }
+
+        public double percentileMillis(double percentile) {
+            long target = (long) Math.ceil(count.sum() * percentile);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= target && seen > 0) {
+                    return Math.min(i == 0 ? 0 : Math.pow(2, i), maxNanos.get()) / 1e6;
+                }
+            }
+            return maxMillis();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package edu.trincoll;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An image decoded on a {@link DecodeExecutor} thread. It is a black placeholder of
+ * the final size until the pixels are written in on the FX thread. A WritableImage
+ * reports progress 1.0 from the start, so callers that care whether the pixels have
+ * arrived use {@link #isLoaded} and {@link #whenLoaded}, which also work for images
+ * JavaFX loads itself.
+ */
+public class PendingImage extends WritableImage {
+    private final List<Runnable> onLoaded = new ArrayList<>();
+    private CompletableFuture<?> decode;
+    private boolean cancelled;
+    // Written on the FX thread, read from tests and the perf harness too
+    private volatile boolean loaded;
+    private volatile boolean failed;
+
+    PendingImage(int width, int height) {
+        super(width, height);
+    }
+
+    // Set before the decode can finish, so cancel() always reaches it
+    void track(CompletableFuture<?> decode) {
+        this.decode = decode;
+        decode.whenComplete((result, error) -> {
+            if (error != null) {
+                Platform.runLater(this::fail);
+            }
+        });
+    }
+
+    /** Runs the resubmission later on the FX thread, unless the image is cancelled first. */
+    void retryLater(Runnable resubmit) {
+        PauseTransition pause = new PauseTransition(Duration.millis(DecodeExecutor.QUEUE_RETRY_MILLIS));
+        pause.setOnFinished(e -> {
+            if (!cancelled) resubmit.run();
+        });
+        pause.play();
+    }
+
+    /** Writes the decoded pixels in; call on the FX thread. */
+    void complete(int[] argb) {
+        if (loaded || failed) return;
+        getPixelWriter().setPixels(0, 0, (int) getWidth(), (int) getHeight(),
+                PixelFormat.getIntArgbInstance(), argb, 0, (int) getWidth());
+        loaded = true;
+        onLoaded.forEach(Runnable::run);
+        onLoaded.clear();
+    }
+
+    /** Marks the decode as failed; call on the FX thread. */
+    void fail() {
+        if (loaded) return;
+        failed = true;
+        onLoaded.clear();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        // Skips the decode if no thread has started it yet
+        if (decode != null) {
+            decode.cancel(false);
+        } else {
+            // Still waiting for room in the decode queue
+            fail();
+        }
+    }
+
+    /** True once the pixels are in place and the image can be shown. */
+    public static boolean isLoaded(Image image) {
+        if (image instanceof PendingImage pending) {
+            return pending.loaded;
+        }
+        return image.getProgress() >= 1.0 && !image.isError();
+    }
+
+    /** True while the pixels can still arrive. */
+    public static boolean isLoading(Image image) {
+        if (image instanceof PendingImage pending) {
+            return !pending.loaded && !pending.failed;
+        }
+        return image.getProgress() < 1.0;
+    }
+
+    public static boolean isFailed(Image image) {
+        if (image instanceof PendingImage pending) {
+            return pending.failed;
+        }
+        return image.isError();
+    }
+
+    /**
+     * Runs the action on the FX thread once the image has loaded, or right away if it
+     * already has. Nothing runs if loading fails.
+     */
+    public static void whenLoaded(Image image, Runnable action) {
+        if (isLoaded(image)) {
+            action.run();
+        } else if (image instanceof PendingImage pending) {
+            pending.onLoaded.add(action);
+        } else {
+            image.progressProperty().addListener((obs, oldVal, newVal) -> {
+                if (newVal.doubleValue() >= 1.0 && !image.isError()) {
+                    action.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package edu.trincoll;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.Label;
+
+/**
+ * Toggleable overlay of live performance numbers, for finding out why a kiosk
+ * stutters. Each pulse only counts the frame and notes its interval; the cache,
+ * executor, heap and slide latency are read and the text rebuilt at most twice a
+ * second, so the overlay costs no measurable frame time.
+ */
+public class PerformanceHud extends Label {
+    static final long REFRESH_INTERVAL_NANOS = 500_000_000L;
+    private static final double BYTES_PER_MB = 1024 * 1024;
+
+    private final DecodeExecutor executor;
+    private final ImageCache cache;
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            sample(now);
+        }
+    };
+    private long lastPulse;
+    private long lastRefresh;
+    private int framesSinceRefresh;
+    private long lastFrameNanos;
+    private long worstFrameNanos;
+
+    public PerformanceHud(DecodeExecutor executor, ImageCache cache) {
+        this.executor = executor;
+        this.cache = cache;
+        setStyle("-fx-background-color: rgba(0, 0, 0, 0.65); -fx-text-fill: #9cf09c; "
+                + "-fx-font-family: monospace; -fx-font-size: 11px; -fx-padding: 5 8 5 8;");
+        setMouseTransparent(true);
+        setShowing(false);
+    }
+
+    public void setShowing(boolean showing) {
+        setVisible(showing);
+        if (showing) {
+            lastPulse = 0;
+            lastRefresh = 0;
+            timer.start();
+        } else {
+            // A running timer requests a pulse every frame, so only run it while shown
+            timer.stop();
+        }
+    }
+
+    public boolean isShowing() {
+        return isVisible();
+    }
+
+    void sample(long now) {
+        if (lastPulse != 0) {
+            lastFrameNanos = now - lastPulse;
+            worstFrameNanos = Math.max(worstFrameNanos, lastFrameNanos);
+            framesSinceRefresh++;
+        }
+        lastPulse = now;
+        if (lastRefresh == 0) {
+            lastRefresh = now;
+        } else if (now - lastRefresh >= REFRESH_INTERVAL_NANOS) {
+            refresh(now - lastRefresh);
+            lastRefresh = now;
+            framesSinceRefresh = 0;
+            worstFrameNanos = 0;
+        }
+    }
+
+    private void refresh(long elapsedNanos) {
+        Runtime runtime = Runtime.getRuntime();
+        MetricsRegistry.LatencyHistogram slides = MetricsRegistry.getDefault().getLatency("slide.display");
+        setText(String.format("%5.1f FPS   frame %5.1f ms (worst %.1f)%n"
+                        + "decode queue %d%n"
+                        + "cache %.0f / %.0f MB (%d images)%n"
+                        + "heap %.0f / %.0f MB%n"
+                        + "last slide %s",
+                framesSinceRefresh * 1e9 / elapsedNanos, lastFrameNanos / 1e6, worstFrameNanos / 1e6,
+                executor.getQueuedDecodes(),
+                cache.getUsedBytes() / BYTES_PER_MB, cache.getBudgetBytes() / BYTES_PER_MB, cache.size(),
+                (runtime.totalMemory() - runtime.freeMemory()) / BYTES_PER_MB, runtime.maxMemory() / BYTES_PER_MB,
+                slides != null ? String.format("%.0f ms", slides.lastMillis()) : "-"));
+    }
+}
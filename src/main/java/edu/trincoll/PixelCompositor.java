@@ -0,0 +1,139 @@
+package edu.trincoll;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Renders blend-based transitions into a single image backed by a direct pixel
+ * buffer. The outgoing and incoming slides are drawn into pixel arrays once when a
+ * transition starts; each frame then combines them straight into the buffer, so the
+ * cost per frame is one pass over the pixels with no allocation and no extra nodes.
+ */
+public class PixelCompositor {
+    private static final int BACKGROUND = 0xFF000000;
+    private static final long DISSOLVE_SEED = 0x5EED;
+
+    private int width;
+    private int height;
+    private IntBuffer buffer;
+    private PixelBuffer<IntBuffer> pixelBuffer;
+    private WritableImage output;
+    private int[] from = new int[0];
+    private int[] to = new int[0];
+    private byte[] dissolveOrder = new byte[0];
+    private int[] scratch = new int[0];
+    private TransitionType type;
+    private double progress;
+
+    /**
+     * Draws both views' images into the compositor at the given pixel size and returns
+     * the image that {@link #render} updates. Buffers are only reallocated when the
+     * size changes.
+     */
+    public WritableImage prepare(ImageView fromView, ImageView toView, int width, int height,
+                                 double pixelScale, TransitionType type) {
+        ensureSize(Math.max(1, width), Math.max(1, height));
+        draw(fromView, from, pixelScale);
+        draw(toView, to, pixelScale);
+        this.type = type;
+        render(0);
+        return output;
+    }
+
+    public void render(double progress) {
+        this.progress = progress;
+        pixelBuffer.updateBuffer(updated -> {
+            switch (type) {
+                case DISSOLVE -> dissolve();
+                case WIPE -> wipe();
+                default -> crossfade();
+            }
+            return null;  // The whole image changed
+        });
+    }
+
+    private void ensureSize(int newWidth, int newHeight) {
+        if (output != null && newWidth == width && newHeight == height) return;
+        width = newWidth;
+        height = newHeight;
+        int pixels = width * height;
+        buffer = ByteBuffer.allocateDirect(pixels * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        pixelBuffer = new PixelBuffer<>(width, height, buffer, PixelFormat.getIntArgbPreInstance());
+        output = new WritableImage(pixelBuffer);
+        from = new int[pixels];
+        to = new int[pixels];
+
+        // A fixed random order in which pixels switch over during a dissolve
+        dissolveOrder = new byte[pixels];
+        new Random(DISSOLVE_SEED).nextBytes(dissolveOrder);
+    }
+
+    // Letterboxes the view's image into the frame at its on-screen size
+    private void draw(ImageView view, int[] target, double pixelScale) {
+        Arrays.fill(target, BACKGROUND);
+        Image image = view.getImage();
+        if (image == null || !PendingImage.isLoaded(image)) return;
+
+        int imageWidth = (int) image.getWidth();
+        int imageHeight = (int) image.getHeight();
+        if (imageWidth == 0 || imageHeight == 0) return;
+        if (scratch.length < imageWidth * imageHeight) {
+            scratch = new int[imageWidth * imageHeight];
+        }
+        image.getPixelReader().getPixels(0, 0, imageWidth, imageHeight,
+                PixelFormat.getIntArgbPreInstance(), scratch, 0, imageWidth);
+
+        double fitWidth = view.getFitWidth() > 0 ? view.getFitWidth() : imageWidth;
+        double fitHeight = view.getFitHeight() > 0 ? view.getFitHeight() : imageHeight;
+        double scale = Math.min(fitWidth / imageWidth, fitHeight / imageHeight) * pixelScale;
+        int drawWidth = Math.min(width, (int) Math.round(imageWidth * scale));
+        int drawHeight = Math.min(height, (int) Math.round(imageHeight * scale));
+        int left = (width - drawWidth) / 2;
+        int top = (height - drawHeight) / 2;
+
+        for (int y = 0; y < drawHeight; y++) {
+            int sourceRow = (int) ((long) y * imageHeight / drawHeight) * imageWidth;
+            int targetRow = (top + y) * width + left;
+            for (int x = 0; x < drawWidth; x++) {
+                target[targetRow + x] = scratch[sourceRow + (int) ((long) x * imageWidth / drawWidth)];
+            }
+        }
+    }
+
+    private void crossfade() {
+        int weight = (int) (progress * 256);
+        int inverse = 256 - weight;
+        for (int i = 0, n = from.length; i < n; i++) {
+            int a = from[i];
+            int b = to[i];
+            // Blend red/blue and alpha/green as two packed pairs of channels
+            int redBlue = ((a & 0xFF00FF) * inverse + (b & 0xFF00FF) * weight) >>> 8 & 0xFF00FF;
+            int alphaGreen = ((a >>> 8 & 0xFF00FF) * inverse + (b >>> 8 & 0xFF00FF) * weight) & 0xFF00FF00;
+            buffer.put(i, alphaGreen | redBlue);
+        }
+    }
+
+    private void dissolve() {
+        int threshold = (int) (progress * 256);
+        for (int i = 0, n = from.length; i < n; i++) {
+            buffer.put(i, (dissolveOrder[i] & 0xFF) < threshold ? to[i] : from[i]);
+        }
+    }
+
+    private void wipe() {
+        int edge = (int) (progress * width);
+        for (int row = 0; row < height * width; row += width) {
+            buffer.put(row, to, row, edge);
+            buffer.put(row + edge, from, row + edge, width - edge);
+        }
+    }
+}
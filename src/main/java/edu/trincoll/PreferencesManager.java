@@ -8,10 +8,36 @@ public class PreferencesManager {
     private static final String ROTATION_SPEED_KEY = "rotationSpeed";
     private static final String TRANSITION_TYPE_KEY = "transitionType";
     private static final String LAST_DIRECTORY_KEY = "lastDirectory";
+    private static final String LAST_FILE_KEY = "lastFile";
+    private static final String ZOOM_KEY = "zoom";
+    private static final String ZOOM_X_KEY = "zoomTranslateX";
+    private static final String ZOOM_Y_KEY = "zoomTranslateY";
+    private static final String CACHE_BUDGET_KEY = "cacheBudgetMb";
+    private static final String PREFETCH_AHEAD_KEY = "prefetchAhead";
+    private static final String PREFETCH_BEHIND_KEY = "prefetchBehind";
+    private static final String WATCH_DIRECTORY_KEY = "watchDirectory";
+    private static final String DECODE_THREADS_KEY = "decodeThreads";
+    private static final String COMPOSITE_FADES_KEY = "compositeFades";
+    private static final String PERFORMANCE_HUD_KEY = "performanceHud";
+    private static final long BYTES_PER_MB = 1024 * 1024;
+    // Let a harness run the real app without touching the user's preferences and caches
+    static final String PREFS_NODE_PROPERTY = "imagecarousel.prefsNode";
+    static final String DATA_DIRECTORY_PROPERTY = "imagecarousel.home";
     private final Preferences prefs;
 
     public PreferencesManager() {
-        prefs = Preferences.userNodeForPackage(ImageCarousel.class);
+        String node = System.getProperty(PREFS_NODE_PROPERTY);
+        prefs = node != null
+                ? Preferences.userRoot().node(node)
+                : Preferences.userNodeForPackage(ImageCarousel.class);
+    }
+
+    /** Where catalogs and the thumbnail pack are kept. */
+    public static Path getDataDirectory() {
+        String directory = System.getProperty(DATA_DIRECTORY_PROPERTY);
+        return directory != null
+                ? Paths.get(directory)
+                : Paths.get(System.getProperty("user.home"), ".imagecarousel");
     }
 
     public void saveSettings(Settings settings) {
@@ -34,4 +60,80 @@ public class PreferencesManager {
     public void saveLastDirectory(Path directory) {
         prefs.put(LAST_DIRECTORY_KEY, directory.toAbsolutePath().toString());
     }
-}
\ No newline at end of file
+
+    /** The last slide shown, or null if none has been. */
+    public Path getLastFile() {
+        String savedPath = prefs.get(LAST_FILE_KEY, null);
+        return savedPath != null ? Paths.get(savedPath) : null;
+    }
+
+    public void saveLastFile(Path file) {
+        prefs.put(LAST_FILE_KEY, file.toAbsolutePath().toString());
+    }
+
+    public ZoomController.ZoomState getZoomState() {
+        return new ZoomController.ZoomState(prefs.getDouble(ZOOM_KEY, 1.0),
+                prefs.getDouble(ZOOM_X_KEY, 0), prefs.getDouble(ZOOM_Y_KEY, 0));
+    }
+
+    public void saveZoomState(ZoomController.ZoomState state) {
+        prefs.putDouble(ZOOM_KEY, state.zoom());
+        prefs.putDouble(ZOOM_X_KEY, state.translateX());
+        prefs.putDouble(ZOOM_Y_KEY, state.translateY());
+    }
+
+    public long getCacheBudgetBytes() {
+        // Default to a quarter of the heap so decoded images leave room for everything else
+        long defaultMb = Runtime.getRuntime().maxMemory() / 4 / BYTES_PER_MB;
+        return prefs.getLong(CACHE_BUDGET_KEY, defaultMb) * BYTES_PER_MB;
+    }
+
+    public void saveCacheBudgetBytes(long budgetBytes) {
+        prefs.putLong(CACHE_BUDGET_KEY, budgetBytes / BYTES_PER_MB);
+    }
+
+    public int getPrefetchAhead() {
+        return prefs.getInt(PREFETCH_AHEAD_KEY, 2);
+    }
+
+    public int getPrefetchBehind() {
+        return prefs.getInt(PREFETCH_BEHIND_KEY, 1);
+    }
+
+    public void savePrefetchDepth(int ahead, int behind) {
+        prefs.putInt(PREFETCH_AHEAD_KEY, ahead);
+        prefs.putInt(PREFETCH_BEHIND_KEY, behind);
+    }
+
+    public boolean getWatchDirectory() {
+        return prefs.getBoolean(WATCH_DIRECTORY_KEY, false);
+    }
+
+    public void saveWatchDirectory(boolean watch) {
+        prefs.putBoolean(WATCH_DIRECTORY_KEY, watch);
+    }
+
+    public int getDecodeThreads() {
+        return prefs.getInt(DECODE_THREADS_KEY, Runtime.getRuntime().availableProcessors());
+    }
+
+    public void saveDecodeThreads(int threads) {
+        prefs.putInt(DECODE_THREADS_KEY, threads);
+    }
+
+    public boolean getCompositeFades() {
+        return prefs.getBoolean(COMPOSITE_FADES_KEY, false);
+    }
+
+    public void saveCompositeFades(boolean compositeFades) {
+        prefs.putBoolean(COMPOSITE_FADES_KEY, compositeFades);
+    }
+
+    public boolean getPerformanceHud() {
+        return prefs.getBoolean(PERFORMANCE_HUD_KEY, false);
+    }
+
+    public void savePerformanceHud(boolean show) {
+        prefs.putBoolean(PERFORMANCE_HUD_KEY, show);
+    }
+}
@@ -0,0 +1,70 @@
+package edu.trincoll;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Decodes part of an image file, optionally keeping only every n-th pixel, through
+ * an ImageIO reader. Only the requested region ever exists as a raster, so tiles and
+ * previews of very large images can be produced without decoding the whole image.
+ */
+public final class RegionDecoder {
+
+    private RegionDecoder() {
+    }
+
+    public static Image decode(Path path, Rectangle region, int subsampling) throws IOException {
+        return toFxImage(read(path, region, subsampling));
+    }
+
+    /** The largest subsampling that still leaves at least {@code width} x {@code height} pixels. */
+    public static int subsamplingFor(int sourceWidth, int sourceHeight, int width, int height) {
+        return Math.max(1, Math.min(sourceWidth / Math.max(1, width), sourceHeight / Math.max(1, height)));
+    }
+
+    private static BufferedImage read(Path path, Rectangle region, int subsampling) throws IOException {
+        try (ImageInputStream input = MappedFileInput.openImageStream(path)) {
+            if (input == null) {
+                throw new IOException("Cannot open " + path.getFileName());
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("No reader for " + path.getFileName());
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (region != null) {
+                    param.setSourceRegion(region);
+                }
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static Image toFxImage(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        WritableImage result = new WritableImage(width, height);
+        result.getPixelWriter().setPixels(0, 0, width, height,
+                PixelFormat.getIntArgbInstance(), pixels, 0, width);
+        return result;
+    }
+}
@@ -0,0 +1,540 @@
+package edu.trincoll;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Decodes baseline JPEGs at 1/1, 1/2, 1/4 or 1/8 scale in the DCT domain. Each 8x8
+ * block is transformed straight to a 4x4, 2x2 or 1x1 block from its low-frequency
+ * coefficients, so a reduced image never exists at full size and the inverse
+ * transform gets cheaper with the scale. The largest reduction that still covers the
+ * requested size is used, and the rest of the way is sampled while each row of
+ * blocks is converted to RGB; only one row of blocks and the output are held.
+ * Three components are YCbCr unless an Adobe APP14 segment marks them as RGB.
+ * <p>
+ * Progressive, lossless, arithmetic-coded, 12-bit and CMYK files are not handled.
+ */
+public class ScaledJpegDecoder implements ImageDecoder {
+    private static final int LOOKUP_BITS = 9;
+    private static final int END_OF_IMAGE = 0xD9;
+
+    // Position of each zigzag-ordered coefficient in the natural 8x8 order
+    private static final int[] ZIGZAG = {
+            0, 1, 8, 16, 9, 2, 3, 10, 17, 24, 32, 25, 18, 11, 4, 5,
+            12, 19, 26, 33, 40, 48, 41, 34, 27, 20, 13, 6, 7, 14, 21, 28,
+            35, 42, 49, 56, 57, 50, 43, 36, 29, 22, 15, 23, 30, 37, 44, 51,
+            58, 59, 52, 45, 38, 31, 39, 46, 53, 60, 61, 54, 47, 55, 62, 63
+    };
+
+    // Inverse DCT basis per output block size: an n-point transform of the lowest n
+    // coefficients, scaled so the block keeps the 8x8 block's mean
+    private static final float[][] IDCT_BASIS = new float[9][];
+
+    // YCbCr to RGB, as in JFIF
+    private static final int[] CR_RED = new int[256];
+    private static final int[] CB_BLUE = new int[256];
+    private static final int[] CR_GREEN = new int[256];
+    private static final int[] CB_GREEN = new int[256];
+
+    static {
+        for (int n = 1; n <= 8; n *= 2) {
+            float[] basis = new float[n * n];
+            for (int x = 0; x < n; x++) {
+                for (int u = 0; u < n; u++) {
+                    double alpha = Math.sqrt((u == 0 ? 1.0 : 2.0) / n);
+                    basis[x * n + u] = (float) (alpha * Math.cos((2 * x + 1) * u * Math.PI / (2 * n))
+                            * Math.sqrt(n / 8.0));
+                }
+            }
+            IDCT_BASIS[n] = basis;
+        }
+        for (int i = 0; i < 256; i++) {
+            int c = i - 128;
+            CR_RED[i] = (int) Math.round(1.402 * c);
+            CB_BLUE[i] = (int) Math.round(1.772 * c);
+            CR_GREEN[i] = (int) Math.round(-0.714136 * c * 65536);
+            CB_GREEN[i] = (int) Math.round(-0.344136 * c * 65536) + 32768;
+        }
+    }
+
+    record Pixels(int width, int height, int[] argb) {
+    }
+
+    @Override
+    public boolean canDecode(ImageFormat format) {
+        return format == ImageFormat.JPEG;
+    }
+
+    @Override
+    public Image decode(Path path, int width, int height) throws IOException {
+        Pixels pixels = decodePixels(path, width, height);
+        if (pixels == null) return null;
+        WritableImage image = new WritableImage(pixels.width(), pixels.height());
+        image.getPixelWriter().setPixels(0, 0, pixels.width(), pixels.height(),
+                PixelFormat.getIntArgbInstance(), pixels.argb(), 0, pixels.width());
+        return image;
+    }
+
+    static Pixels decodePixels(Path path, int width, int height) throws IOException {
+        try (InputStream input = MappedFileInput.openStream(path)) {
+            return decodePixels(input, width, height);
+        }
+    }
+
+    static Pixels decodePixels(InputStream input, int width, int height) throws IOException {
+        return new Decoding(new DataInputStream(input)).run(width, height);
+    }
+
+    /** The reduction (1, 2, 4 or 8) that still leaves at least the fitted size. */
+    static int scaleFor(int imageWidth, int imageHeight, int fitWidth, int fitHeight) {
+        for (int scale = 8; scale > 1; scale /= 2) {
+            if (Math.ceilDiv(imageWidth, scale) >= fitWidth && Math.ceilDiv(imageHeight, scale) >= fitHeight) {
+                return scale;
+            }
+        }
+        return 1;
+    }
+
+    private static final class HuffmanTable {
+        // (code length << 8) | symbol for every code of up to LOOKUP_BITS bits; 0 otherwise
+        final int[] lookup = new int[1 << LOOKUP_BITS];
+        final int[] maxCode = new int[17];
+        final int[] valueOffset = new int[17];
+        final byte[] symbols;
+
+        HuffmanTable(int[] counts, byte[] symbols) {
+            this.symbols = symbols;
+            int code = 0;
+            int index = 0;
+            for (int length = 1; length <= 16; length++) {
+                valueOffset[length] = index - code;
+                for (int i = 0; i < counts[length - 1]; i++, code++, index++) {
+                    if (length <= LOOKUP_BITS) {
+                        int shift = LOOKUP_BITS - length;
+                        Arrays.fill(lookup, code << shift, (code + 1) << shift,
+                                (length << 8) | (symbols[index] & 0xFF));
+                    }
+                }
+                maxCode[length] = counts[length - 1] > 0 ? code - 1 : -1;
+                code <<= 1;
+            }
+        }
+    }
+
+    private static final class Component {
+        final int id;
+        int horizontal;
+        int vertical;
+        final int quantTable;
+        HuffmanTable dcTable;
+        HuffmanTable acTable;
+        int dcPredictor;
+        int[] plane;
+        int planeWidth;
+
+        Component(int id, int horizontal, int vertical, int quantTable) {
+            this.id = id;
+            this.horizontal = horizontal;
+            this.vertical = vertical;
+            this.quantTable = quantTable;
+        }
+    }
+
+    // The state of one decode: tables from the headers and the entropy-coded bit stream
+    private static final class Decoding {
+        private final DataInputStream in;
+        private final int[][] quantTables = new int[4][];
+        private final HuffmanTable[] dcTables = new HuffmanTable[4];
+        private final HuffmanTable[] acTables = new HuffmanTable[4];
+        private Component[] components;
+        private int imageWidth;
+        private int imageHeight;
+        private int restartInterval;
+        private boolean rgb;
+        private int bits;
+        private int bitCount;
+        private int pendingMarker;
+
+        Decoding(DataInputStream in) {
+            this.in = in;
+        }
+
+        Pixels run(int width, int height) throws IOException {
+            if (in.readUnsignedShort() != 0xFFD8) {
+                throw new IOException("Not a JPEG file");
+            }
+            while (true) {
+                int marker = nextMarker();
+                if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                    continue;
+                }
+                if (marker == END_OF_IMAGE) {
+                    throw new IOException("JPEG has no scan data");
+                }
+
+                int length = in.readUnsignedShort() - 2;
+                switch (marker) {
+                    case 0xC0, 0xC1 -> {
+                        if (!readFrame()) return null;
+                    }
+                    case 0xC2, 0xC3, 0xC5, 0xC6, 0xC7, 0xC9, 0xCA, 0xCB, 0xCD, 0xCE, 0xCF -> {
+                        return null;  // Progressive, lossless or arithmetic coding
+                    }
+                    case 0xC4 -> readHuffmanTables(length);
+                    case 0xDB -> readQuantTables(length);
+                    case 0xDD -> restartInterval = in.readUnsignedShort();
+                    case 0xEE -> readAdobe(length);
+                    case 0xDA -> {
+                        return readScan(width, height);
+                    }
+                    default -> in.skipNBytes(length);
+                }
+            }
+        }
+
+        private int nextMarker() throws IOException {
+            // Tolerate stray bytes between segments, then any number of fill bytes
+            int marker = in.readUnsignedByte();
+            while (marker != 0xFF) {
+                marker = in.readUnsignedByte();
+            }
+            while (marker == 0xFF) {
+                marker = in.readUnsignedByte();
+            }
+            return marker;
+        }
+
+        private boolean readFrame() throws IOException {
+            int precision = in.readUnsignedByte();
+            imageHeight = in.readUnsignedShort();
+            imageWidth = in.readUnsignedShort();
+            int count = in.readUnsignedByte();
+            components = new Component[count];
+            for (int i = 0; i < count; i++) {
+                int id = in.readUnsignedByte();
+                int sampling = in.readUnsignedByte();
+                int quantTable = in.readUnsignedByte() & 3;
+                components[i] = new Component(id, Math.max(1, sampling >> 4), Math.max(1, sampling & 15), quantTable);
+            }
+            // Grayscale or YCbCr, 8 bits per sample, with the height in the frame header
+            return precision == 8 && (count == 1 || count == 3) && imageWidth > 0 && imageHeight > 0;
+        }
+
+        // Adobe's transform flag: 0 means the components are stored as RGB, 1 as YCbCr
+        private void readAdobe(int length) throws IOException {
+            byte[] segment = in.readNBytes(length);
+            if (segment.length >= 12
+                    && new String(segment, 0, 5, StandardCharsets.US_ASCII).equals("Adobe")) {
+                rgb = segment[11] == 0;
+            }
+        }
+
+        private void readHuffmanTables(int length) throws IOException {
+            while (length > 0) {
+                int info = in.readUnsignedByte();
+                int[] counts = new int[16];
+                int total = 0;
+                for (int i = 0; i < 16; i++) {
+                    counts[i] = in.readUnsignedByte();
+                    total += counts[i];
+                }
+                byte[] symbols = new byte[total];
+                in.readFully(symbols);
+                HuffmanTable table = new HuffmanTable(counts, symbols);
+                if (info >> 4 == 0) {
+                    dcTables[info & 3] = table;
+                } else {
+                    acTables[info & 3] = table;
+                }
+                length -= 17 + total;
+            }
+        }
+
+        private void readQuantTables(int length) throws IOException {
+            while (length > 0) {
+                int info = in.readUnsignedByte();
+                boolean wide = info >> 4 != 0;
+                int[] table = new int[64];
+                for (int i = 0; i < 64; i++) {
+                    table[i] = wide ? in.readUnsignedShort() : in.readUnsignedByte();
+                }
+                quantTables[info & 3] = table;
+                length -= 1 + (wide ? 128 : 64);
+            }
+        }
+
+        private Pixels readScan(int width, int height) throws IOException {
+            if (components == null) {
+                throw new IOException("JPEG has no frame header before scan data");
+            }
+            int count = in.readUnsignedByte();
+            // Components coded in separate scans would need the whole image buffered
+            if (count != components.length) return null;
+            for (int i = 0; i < count; i++) {
+                int id = in.readUnsignedByte();
+                int tables = in.readUnsignedByte();
+                Component component = Arrays.stream(components)
+                        .filter(c -> c.id == id)
+                        .findFirst()
+                        .orElseThrow(() -> new IOException("Scan refers to unknown component " + id));
+                component.dcTable = dcTables[tables >> 4 & 3];
+                component.acTable = acTables[tables & 3];
+                if (component.dcTable == null || component.acTable == null
+                        || quantTables[component.quantTable] == null) {
+                    throw new IOException("Scan refers to a missing table");
+                }
+            }
+            in.skipNBytes(3);  // Spectral selection and approximation, fixed for baseline
+            return decodeScan(width, height);
+        }
+
+        private Pixels decodeScan(int width, int height) throws IOException {
+            double fit = Math.min(1.0, Math.min((double) width / imageWidth, (double) height / imageHeight));
+            int outWidth = Math.max(1, (int) Math.ceil(imageWidth * fit));
+            int outHeight = Math.max(1, (int) Math.ceil(imageHeight * fit));
+            int scale = scaleFor(imageWidth, imageHeight, outWidth, outHeight);
+            int blockSize = 8 / scale;
+            int scaledWidth = Math.ceilDiv(imageWidth, scale);
+            int scaledHeight = Math.ceilDiv(imageHeight, scale);
+
+            // A single component is never interleaved, so its blocks are its units
+            if (components.length == 1) {
+                components[0].horizontal = 1;
+                components[0].vertical = 1;
+            }
+            int maxHorizontal = 1;
+            int maxVertical = 1;
+            for (Component component : components) {
+                maxHorizontal = Math.max(maxHorizontal, component.horizontal);
+                maxVertical = Math.max(maxVertical, component.vertical);
+            }
+            int unitsAcross = Math.ceilDiv(imageWidth, 8 * maxHorizontal);
+            int unitsDown = Math.ceilDiv(imageHeight, 8 * maxVertical);
+            for (Component component : components) {
+                component.planeWidth = unitsAcross * component.horizontal * blockSize;
+                component.plane = new int[component.planeWidth * component.vertical * blockSize];
+            }
+
+            // Output columns sample fixed columns of the reduced image
+            int[][] columns = new int[components.length][outWidth];
+            for (int x = 0; x < outWidth; x++) {
+                int source = (int) ((long) x * scaledWidth / outWidth);
+                for (int c = 0; c < components.length; c++) {
+                    columns[c][x] = source * components[c].horizontal / maxHorizontal;
+                }
+            }
+
+            int[] argb = new int[outWidth * outHeight];
+            float[] coefficients = new float[64];
+            float[] workspace = new float[64];
+            int stripHeight = maxVertical * blockSize;
+            int outRow = 0;
+            int unitsDecoded = 0;
+            for (int unitRow = 0; unitRow < unitsDown && outRow < outHeight; unitRow++) {
+                for (int unitColumn = 0; unitColumn < unitsAcross; unitColumn++) {
+                    if (restartInterval > 0 && unitsDecoded > 0 && unitsDecoded % restartInterval == 0) {
+                        restart();
+                    }
+                    for (Component component : components) {
+                        for (int by = 0; by < component.vertical; by++) {
+                            for (int bx = 0; bx < component.horizontal; bx++) {
+                                decodeBlock(component, coefficients, blockSize);
+                                int offset = by * blockSize * component.planeWidth
+                                        + (unitColumn * component.horizontal + bx) * blockSize;
+                                inverseTransform(coefficients, workspace, blockSize, component.plane,
+                                        offset, component.planeWidth);
+                            }
+                        }
+                    }
+                    unitsDecoded++;
+                }
+
+                // Convert the output rows that sample from this strip
+                int stripTop = unitRow * stripHeight;
+                while (outRow < outHeight) {
+                    int sourceRow = (int) ((long) outRow * scaledHeight / outHeight) - stripTop;
+                    if (sourceRow >= stripHeight) break;
+                    convertRow(sourceRow, maxVertical, columns, argb, outRow * outWidth, outWidth);
+                    outRow++;
+                }
+            }
+            return new Pixels(outWidth, outHeight, argb);
+        }
+
+        private void convertRow(int sourceRow, int maxVertical, int[][] columns,
+                                int[] argb, int offset, int width) {
+            Component luma = components[0];
+            int lumaRow = sourceRow * luma.vertical / maxVertical * luma.planeWidth;
+            if (components.length == 1) {
+                for (int x = 0; x < width; x++) {
+                    int y = luma.plane[lumaRow + columns[0][x]];
+                    argb[offset + x] = 0xFF000000 | y << 16 | y << 8 | y;
+                }
+                return;
+            }
+
+            Component blue = components[1];
+            Component red = components[2];
+            int blueRow = sourceRow * blue.vertical / maxVertical * blue.planeWidth;
+            int redRow = sourceRow * red.vertical / maxVertical * red.planeWidth;
+            if (rgb) {
+                // Stored as red, green and blue, so the planes are the channels
+                for (int x = 0; x < width; x++) {
+                    int r = luma.plane[lumaRow + columns[0][x]];
+                    int g = blue.plane[blueRow + columns[1][x]];
+                    int b = red.plane[redRow + columns[2][x]];
+                    argb[offset + x] = 0xFF000000 | r << 16 | g << 8 | b;
+                }
+                return;
+            }
+            for (int x = 0; x < width; x++) {
+                int y = luma.plane[lumaRow + columns[0][x]];
+                int cb = blue.plane[blueRow + columns[1][x]];
+                int cr = red.plane[redRow + columns[2][x]];
+                int r = clamp(y + CR_RED[cr]);
+                int g = clamp(y + ((CB_GREEN[cb] + CR_GREEN[cr]) >> 16));
+                int b = clamp(y + CB_BLUE[cb]);
+                argb[offset + x] = 0xFF000000 | r << 16 | g << 8 | b;
+            }
+        }
+
+        private void decodeBlock(Component component, float[] coefficients, int blockSize) throws IOException {
+            Arrays.fill(coefficients, 0);
+            int[] quant = quantTables[component.quantTable];
+
+            int size = decodeSymbol(component.dcTable);
+            component.dcPredictor += size == 0 ? 0 : extend(receive(size), size);
+            coefficients[0] = component.dcPredictor * quant[0];
+
+            for (int k = 1; k < 64; k++) {
+                int symbol = decodeSymbol(component.acTable);
+                int run = symbol >> 4;
+                size = symbol & 15;
+                if (size == 0) {
+                    if (run != 15) break;  // End of block
+                    k += 15;
+                    continue;
+                }
+                k += run;
+                if (k > 63) {
+                    throw new IOException("Corrupt JPEG coefficient data");
+                }
+                int value = extend(receive(size), size);
+                // Coefficients above the output's frequencies are read but not kept
+                int position = ZIGZAG[k];
+                if ((position >> 3) < blockSize && (position & 7) < blockSize) {
+                    coefficients[position] = value * quant[k];
+                }
+            }
+        }
+
+        private static void inverseTransform(float[] coefficients, float[] workspace, int n,
+                                             int[] plane, int offset, int stride) {
+            float[] basis = IDCT_BASIS[n];
+            for (int v = 0; v < n; v++) {
+                for (int x = 0; x < n; x++) {
+                    float sum = 0;
+                    for (int u = 0; u < n; u++) {
+                        sum += coefficients[v * 8 + u] * basis[x * n + u];
+                    }
+                    workspace[v * n + x] = sum;
+                }
+            }
+            for (int y = 0; y < n; y++) {
+                for (int x = 0; x < n; x++) {
+                    float sum = 0;
+                    for (int v = 0; v < n; v++) {
+                        sum += basis[y * n + v] * workspace[v * n + x];
+                    }
+                    plane[offset + y * stride + x] = clamp(Math.round(sum) + 128);
+                }
+            }
+        }
+
+        private static int clamp(int value) {
+            return value < 0 ? 0 : Math.min(value, 255);
+        }
+
+        private static int extend(int value, int size) {
+            return value < 1 << (size - 1) ? value - (1 << size) + 1 : value;
+        }
+
+        private int decodeSymbol(HuffmanTable table) throws IOException {
+            fill();
+            int entry = table.lookup[peek(LOOKUP_BITS)];
+            if (entry != 0) {
+                bitCount -= entry >> 8;
+                return entry & 0xFF;
+            }
+            for (int length = LOOKUP_BITS + 1; length <= 16; length++) {
+                int code = peek(length);
+                if (code <= table.maxCode[length]) {
+                    bitCount -= length;
+                    return table.symbols[code + table.valueOffset[length]] & 0xFF;
+                }
+            }
+            throw new IOException("Corrupt JPEG Huffman data");
+        }
+
+        private int receive(int size) throws IOException {
+            fill();
+            int value = peek(size);
+            bitCount -= size;
+            return value;
+        }
+
+        private int peek(int count) {
+            return bits >>> (bitCount - count) & ((1 << count) - 1);
+        }
+
+        private void fill() throws IOException {
+            while (bitCount <= 24) {
+                bits = bits << 8 | nextByte();
+                bitCount += 8;
+            }
+        }
+
+        // Entropy-coded data: 0xFF00 stands for 0xFF, any other 0xFFxx is a marker,
+        // after which the stream reads as zeros
+        private int nextByte() throws IOException {
+            if (pendingMarker != 0) return 0;
+            int value = in.read();
+            if (value == 0xFF) {
+                int next = in.read();
+                while (next == 0xFF) {
+                    next = in.read();
+                }
+                if (next == 0) return 0xFF;
+                pendingMarker = next < 0 ? END_OF_IMAGE : next;
+                return 0;
+            }
+            if (value < 0) {
+                pendingMarker = END_OF_IMAGE;
+                return 0;
+            }
+            return value;
+        }
+
+        private void restart() throws IOException {
+            bits = 0;
+            bitCount = 0;
+            while (pendingMarker == 0) {
+                nextByte();
+            }
+            if (pendingMarker >= 0xD0 && pendingMarker <= 0xD7) {
+                pendingMarker = 0;
+            }
+            for (Component component : components) {
+                component.dcPredictor = 0;
+            }
+        }
+    }
+}
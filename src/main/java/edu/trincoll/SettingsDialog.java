@@ -38,6 +38,8 @@ public class SettingsDialog extends Dialog<Settings> {
                     case FADE -> "Fade Effect";
                     case SLIDE_LEFT -> "Slide Left";
                     case SLIDE_RIGHT -> "Slide Right";
+                    case DISSOLVE -> "Dissolve";
+                    case WIPE -> "Wipe";
                 };
             }
 
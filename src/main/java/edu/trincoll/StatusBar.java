@@ -2,6 +2,7 @@ package edu.trincoll;
 
 import javafx.geometry.Insets;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
@@ -10,6 +11,8 @@ public class StatusBar extends HBox {
     private final Label directoryLabel;
     private final Label imageLabel;
     private final Label errorLabel;
+    private final ProgressBar loadProgressBar;
+    private final Label loadProgressLabel;
 
     public StatusBar() {
         super(10); // 10px spacing between elements
@@ -21,10 +24,16 @@ public class StatusBar extends HBox {
         errorLabel = new Label();
         errorLabel.setStyle("-fx-text-fill: red;");
 
+        loadProgressBar = new ProgressBar();
+        loadProgressBar.setPrefWidth(100);
+        loadProgressLabel = new Label();
+        setLoadProgressVisible(false);
+
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
 
-        getChildren().addAll(directoryLabel, spacer, imageLabel, errorLabel);
+        getChildren().addAll(directoryLabel, loadProgressBar, loadProgressLabel,
+                spacer, imageLabel, errorLabel);
     }
 
     public void updateDirectory(String directory) {
@@ -35,6 +44,29 @@ public class StatusBar extends HBox {
         imageLabel.setText(imageInfo);
     }
 
+    public void showLoadProgress(int loaded, int found, boolean scanning) {
+        setLoadProgressVisible(true);
+        if (scanning) {
+            // Total is unknown until the scan finishes
+            loadProgressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+            loadProgressLabel.setText(String.format("Loading %d of %d+", loaded, found));
+        } else {
+            loadProgressBar.setProgress(found == 0 ? 1.0 : (double) loaded / found);
+            loadProgressLabel.setText(String.format("Loading %d of %d", loaded, found));
+        }
+    }
+
+    public void clearLoadProgress() {
+        setLoadProgressVisible(false);
+    }
+
+    private void setLoadProgressVisible(boolean visible) {
+        loadProgressBar.setVisible(visible);
+        loadProgressBar.setManaged(visible);
+        loadProgressLabel.setVisible(visible);
+        loadProgressLabel.setManaged(visible);
+    }
+
     public void showError(String error) {
         errorLabel.setText(error);
         // Clear error after 5 seconds
@@ -0,0 +1,427 @@
+package edu.trincoll;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Persistent thumbnail cache kept in a single append-only pack file. Each record holds
+ * the source path, size and modification time plus the thumbnail's deflated ARGB
+ * pixels. An in-memory index of record offsets is rebuilt from the pack on open, and
+ * thumbnails are read through a memory-mapped view of the file.
+ * <p>
+ * Compaction writes the live records to the next generation of the pack
+ * ({@code thumbnails.pack.1}, {@code .2}, ...) rather than replacing the mapped file,
+ * and older generations are deleted once nothing maps them. Only the instance holding
+ * the pack's lock appends to it; another instance opened on the same pack reads it.
+ */
+public class ThumbnailStore implements AutoCloseable {
+    private static final int MAGIC = 0x49435450; // "ICTP"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    // Rewrite the pack once more than half of it is superseded or stale records
+    private static final double COMPACTION_RATIO = 0.5;
+    // Records are addressed through a single mapping, which cannot exceed 2 GB
+    private static final long MAX_PACK_SIZE = Integer.MAX_VALUE;
+    // Lock a byte past any record rather than the records themselves: Windows locks
+    // are mandatory and would stop other instances reading the pack
+    private static final long LOCK_POSITION = Long.MAX_VALUE - 1;
+
+    /** Decoded thumbnail pixels in non-premultiplied ARGB order. */
+    public record Thumbnail(int width, int height, int[] pixels) {
+    }
+
+    private record Record(long offset, int length, long fileSize, long lastModified,
+                          int thumbSize, int width, int height, long dataOffset, int dataLength) {
+    }
+
+    private final Path packFile;
+    private final Map<Path, Record> index = new HashMap<>();
+    private int generation;
+    private FileChannel channel;
+    // Null when another instance owns the pack
+    private FileLock lock;
+    private MappedByteBuffer mapped;
+    private long garbageBytes = 0;
+
+    public ThumbnailStore(Path packFile) throws IOException {
+        this.packFile = packFile;
+        Files.createDirectories(packFile.toAbsolutePath().getParent());
+        open();
+    }
+
+    public static ThumbnailStore openDefault() throws IOException {
+        return new ThumbnailStore(PreferencesManager.getDataDirectory().resolve("thumbnails.pack"));
+    }
+
+    private void open() throws IOException {
+        generation = latestGeneration();
+        Path file = generationFile(generation);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        lock = tryLock(channel);
+        if (lock == null) {
+            System.out.println("Thumbnail cache is in use by another instance, opening it read-only");
+        }
+
+        // Repair the file before mapping it; Windows cannot truncate a mapped file
+        boolean valid = hasCurrentHeader();
+        if (lock != null) {
+            if (!valid) {
+                if (channel.size() >= FILE_HEADER_SIZE) {
+                    System.err.println("Discarding incompatible thumbnail cache: " + file);
+                }
+                resetPack();
+                valid = true;
+            }
+            truncateDamagedTail();
+            deleteOlderGenerations();
+        }
+
+        remap();
+        if (valid) {
+            buildIndex();
+        } else {
+            index.clear();
+            garbageBytes = 0;
+        }
+    }
+
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock(LOCK_POSITION, 1, false);
+        } catch (OverlappingFileLockException e) {
+            // Another store in this process has the pack open
+            return null;
+        }
+    }
+
+    private boolean hasCurrentHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        return readFully(header, 0) && header.getInt(0) == MAGIC && header.getInt(4) == VERSION;
+    }
+
+    private boolean readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) return false;
+        }
+        return true;
+    }
+
+    private void resetPack() throws IOException {
+        channel.truncate(0);
+        channel.write(fileHeader(), 0);
+    }
+
+    private static ByteBuffer fileHeader() {
+        return ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+    }
+
+    // Drops a record cut short by a crash, and everything after it
+    private void truncateDamagedTail() throws IOException {
+        long size = channel.size();
+        long position = FILE_HEADER_SIZE;
+        ByteBuffer lengthBytes = ByteBuffer.allocate(Integer.BYTES);
+        while (position < size) {
+            lengthBytes.clear();
+            int length = readFully(lengthBytes, position) ? lengthBytes.getInt(0) : 0;
+            if (length <= 0 || position + length > size) {
+                System.err.println("Truncating damaged thumbnail cache at offset " + position);
+                channel.truncate(position);
+                return;
+            }
+            position += length;
+        }
+    }
+
+    private Path generationFile(int generation) {
+        return generation == 0 ? packFile : packFile.resolveSibling(packFile.getFileName() + "." + generation);
+    }
+
+    // The generation a file name belongs to, or -1 if it is not a generation of this pack
+    private int generationOf(String fileName) {
+        String base = packFile.getFileName().toString();
+        if (fileName.equals(base)) return 0;
+        if (!fileName.startsWith(base + ".")) return -1;
+        try {
+            int generation = Integer.parseInt(fileName.substring(base.length() + 1));
+            return generation > 0 ? generation : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private List<Integer> generations() throws IOException {
+        List<Integer> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(packFile.toAbsolutePath().getParent())) {
+            for (Path file : files) {
+                int candidate = generationOf(file.getFileName().toString());
+                if (candidate >= 0) {
+                    generations.add(candidate);
+                }
+            }
+        }
+        return generations;
+    }
+
+    private int latestGeneration() throws IOException {
+        int latest = 0;
+        for (int candidate : generations()) {
+            latest = Math.max(latest, candidate);
+        }
+        return latest;
+    }
+
+    // A generation still mapped here or by another instance cannot be deleted on
+    // Windows; it is retried the next time the pack is opened
+    private void deleteOlderGenerations() throws IOException {
+        for (int older : generations()) {
+            if (older < generation) {
+                try {
+                    Files.deleteIfExists(generationFile(older));
+                } catch (IOException e) {
+                    // Still in use
+                }
+            }
+        }
+    }
+
+    private void remap() throws IOException {
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    // Appends grow the file past the current mapping, so remap lazily on first read
+    private void ensureMapped(long end) throws IOException {
+        if (end > mapped.limit()) {
+            remap();
+        }
+    }
+
+    private void buildIndex() {
+        index.clear();
+        garbageBytes = 0;
+        long position = FILE_HEADER_SIZE;
+        long end = mapped.limit();
+        while (position + Integer.BYTES <= end) {
+            int length = mapped.getInt((int) position);
+            if (length <= 0 || position + length > end) {
+                // The owning instance is part way through appending this record
+                break;
+            }
+            Record previous = index.put(readPath(position), readRecord(position, length));
+            if (previous != null) {
+                garbageBytes += previous.length();
+            }
+            position += length;
+        }
+    }
+
+    private Path readPath(long offset) {
+        int pathLength = mapped.getShort((int) offset + 4) & 0xFFFF;
+        byte[] pathBytes = new byte[pathLength];
+        mapped.get((int) offset + 6, pathBytes);
+        return Paths.get(new String(pathBytes, StandardCharsets.UTF_8));
+    }
+
+    private Record readRecord(long offset, int length) {
+        int position = (int) offset + 4;
+        int pathLength = mapped.getShort(position) & 0xFFFF;
+        position += 2 + pathLength;
+        long fileSize = mapped.getLong(position);
+        long lastModified = mapped.getLong(position + 8);
+        int thumbSize = mapped.getShort(position + 16) & 0xFFFF;
+        int width = mapped.getShort(position + 18) & 0xFFFF;
+        int height = mapped.getShort(position + 20) & 0xFFFF;
+        int dataLength = mapped.getInt(position + 22);
+        return new Record(offset, length, fileSize, lastModified, thumbSize, width, height,
+                position + 26, dataLength);
+    }
+
+    public synchronized Thumbnail get(ImageEntry entry, int thumbSize) {
+        Record record = index.get(entry.path());
+        if (record == null
+                || record.fileSize() != entry.fileSize()
+                || record.lastModified() != entry.lastModified()
+                || record.thumbSize() != thumbSize) {
+            return null;
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            ensureMapped(record.offset() + record.length());
+            inflater.setInput(mapped.slice((int) record.dataOffset(), record.dataLength()));
+            ByteBuffer pixelBytes = ByteBuffer.allocate(record.width() * record.height() * Integer.BYTES);
+            while (pixelBytes.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(pixelBytes) == 0 && inflater.needsInput()) break;
+            }
+            int[] pixels = new int[record.width() * record.height()];
+            pixelBytes.flip().asIntBuffer().get(pixels);
+            return new Thumbnail(record.width(), record.height(), pixels);
+        } catch (IOException | DataFormatException | RuntimeException e) {
+            System.err.println("Corrupt thumbnail for " + entry.fileName() + ": " + e.getMessage());
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    public synchronized void put(ImageEntry entry, int thumbSize, Thumbnail thumbnail) {
+        if (lock == null) {
+            // Only the instance holding the lock appends
+            return;
+        }
+        try {
+            ByteBuffer pixelBytes = ByteBuffer.allocate(thumbnail.pixels().length * Integer.BYTES);
+            pixelBytes.asIntBuffer().put(thumbnail.pixels());
+            byte[] data = deflate(pixelBytes.array());
+            byte[] pathBytes = entry.path().toString().getBytes(StandardCharsets.UTF_8);
+
+            int length = 4 + 2 + pathBytes.length + 8 + 8 + 2 + 2 + 2 + 4 + data.length;
+            ByteBuffer recordBytes = ByteBuffer.allocate(length)
+                    .putInt(length)
+                    .putShort((short) pathBytes.length)
+                    .put(pathBytes)
+                    .putLong(entry.fileSize())
+                    .putLong(entry.lastModified())
+                    .putShort((short) thumbSize)
+                    .putShort((short) thumbnail.width())
+                    .putShort((short) thumbnail.height())
+                    .putInt(data.length)
+                    .put(data)
+                    .flip();
+
+            long offset = channel.size();
+            if (offset + length > MAX_PACK_SIZE) {
+                return;
+            }
+            while (recordBytes.hasRemaining()) {
+                channel.write(recordBytes, offset + recordBytes.position());
+            }
+
+            int dataOffset = 4 + 2 + pathBytes.length + 8 + 8 + 2 + 2 + 2 + 4;
+            Record previous = index.put(entry.path(), new Record(offset, length,
+                    entry.fileSize(), entry.lastModified(), thumbSize,
+                    thumbnail.width(), thumbnail.height(), offset + dataOffset, data.length));
+            if (previous != null) {
+                garbageBytes += previous.length();
+            }
+        } catch (IOException e) {
+            System.err.println("Could not store thumbnail for " + entry.fileName() + ": " + e.getMessage());
+        }
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            byte[] buffer = new byte[Math.max(64, input.length / 2)];
+            int total = 0;
+            while (!deflater.finished()) {
+                if (total == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                total += deflater.deflate(buffer, total, buffer.length - total);
+            }
+            return Arrays.copyOf(buffer, total);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Drops records whose source file has changed or disappeared, then compacts the
+     * pack if enough of it has become garbage. Touches the file system for every
+     * record, so callers should run it off the FX thread.
+     */
+    public void invalidateStale() {
+        List<Map.Entry<Path, Record>> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(index.entrySet());
+        }
+
+        List<Path> stale = new ArrayList<>();
+        for (Map.Entry<Path, Record> candidate : snapshot) {
+            if (isStale(candidate.getKey(), candidate.getValue())) {
+                stale.add(candidate.getKey());
+            }
+        }
+
+        synchronized (this) {
+            for (Path path : stale) {
+                Record removed = index.remove(path);
+                if (removed != null) {
+                    garbageBytes += removed.length();
+                }
+            }
+            try {
+                if (lock != null && garbageBytes > channel.size() * COMPACTION_RATIO) {
+                    compact();
+                }
+            } catch (IOException e) {
+                System.err.println("Could not compact thumbnail cache: " + e.getMessage());
+            }
+        }
+    }
+
+    private static boolean isStale(Path path, Record record) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return attributes.size() != record.fileSize()
+                    || attributes.lastModifiedTime().toMillis() != record.lastModified();
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private void compact() throws IOException {
+        ensureMapped(channel.size());
+        Path temp = packFile.resolveSibling(packFile.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            out.write(fileHeader());
+            for (Record record : index.values()) {
+                ByteBuffer recordBytes = mapped.slice((int) record.offset(), record.length());
+                while (recordBytes.hasRemaining()) {
+                    out.write(recordBytes);
+                }
+            }
+            out.force(true);
+        }
+
+        // The current pack stays mapped until the buffer is collected, and Windows
+        // will not replace a mapped file, so move the compacted pack in as a new
+        // generation instead
+        Files.move(temp, generationFile(generation + 1), StandardCopyOption.ATOMIC_MOVE);
+        channel.close();
+        open();
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
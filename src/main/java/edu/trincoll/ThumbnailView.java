@@ -1,71 +1,336 @@
 package edu.trincoll;
 
-import javafx.geometry.Insets;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.css.PseudoClass;
+import javafx.geometry.Bounds;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
-import javafx.scene.layout.FlowPane;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Pane;
 import javafx.scene.layout.StackPane;
+import javafx.util.Duration;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
+/**
+ * Virtualized thumbnail grid. Only the cells in or near the viewport exist; they are
+ * positioned from the scroll offset and recycled as the grid scrolls, so the node
+ * count stays the same whether the directory holds a hundred images or a hundred
+ * thousand.
+ */
 public class ThumbnailView {
     private static final double THUMB_SIZE = 120;
+    private static final double MAX_PREVIEW_ASPECT_ERROR = 0.02;
     private static final double SPACING = 10;
+    private static final double CELL_STRIDE = THUMB_SIZE + SPACING;
+    private static final int OVERSCAN_ROWS = 2;
+    private static final int MEMORY_CACHE_SIZE = 512;
+    private static final PseudoClass SELECTED = PseudoClass.getPseudoClass("selected");
 
     private final ScrollPane scrollPane;
-    private final FlowPane flowPane;
+    private final Pane gridPane;
     private Consumer<Integer> onThumbnailSelected;
     private int selectedIndex = -1;  // Add to track selection
+    private final ThumbnailStore store;
+    private final DecodeExecutor executor;
+    private volatile int generation = 0;  // Bumped on every setImages so stale loads are dropped
+
+    private List<ImageEntry> images = List.of();
+    private int columns = 1;
+    private final Map<Integer, ThumbnailCell> visibleCells = new HashMap<>();
+    private final Deque<ThumbnailCell> recycledCells = new ArrayDeque<>();
+    // Cells whose request the full decode queue turned away, asked again together later
+    private final Set<ThumbnailCell> deferredCells = new LinkedHashSet<>();
+    private boolean retryScheduled;
+    // Recently shown thumbnails, so scrolling back does not go to the store again
+    private final Map<ImageEntry, Image> recentThumbnails = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ImageEntry, Image> eldest) {
+            return size() > MEMORY_CACHE_SIZE;
+        }
+    };
+
+    private class ThumbnailCell extends StackPane {
+        private final ImageView thumbView = new ImageView();
+        private volatile int boundIndex = -1;
+
+        ThumbnailCell() {
+            thumbView.setFitWidth(THUMB_SIZE);
+            thumbView.setFitHeight(THUMB_SIZE);
+            thumbView.setPreserveRatio(true);
+            getChildren().add(thumbView);
+            getStyleClass().add("stack-pane");  // Add for test lookup
+            setPrefSize(THUMB_SIZE, THUMB_SIZE);
+
+            setOnMouseClicked(e -> {
+                if (onThumbnailSelected != null && boundIndex >= 0) {
+                    select(boundIndex);  // Update selection on click
+                    onThumbnailSelected.accept(boundIndex);
+                }
+            });
+        }
+
+        void bind(int index) {
+            boundIndex = index;
+            setVisible(true);
+            position();
+            pseudoClassStateChanged(SELECTED, index == selectedIndex);
+
+            ImageEntry entry = images.get(index);
+            Image cached = recentThumbnails.get(entry);
+            thumbView.setImage(cached);
+            if (cached == null) {
+                requestThumbnail(this, index, entry);
+            }
+        }
+
+        void position() {
+            relocate(SPACING + (boundIndex % columns) * CELL_STRIDE,
+                    SPACING + (boundIndex / columns) * CELL_STRIDE);
+        }
+
+        void unbind() {
+            boundIndex = -1;
+            deferredCells.remove(this);
+            pseudoClassStateChanged(SELECTED, false);
+            thumbView.setImage(null);
+            setVisible(false);
+        }
+    }
 
     public ThumbnailView() {
-        flowPane = new FlowPane();
-        flowPane.setHgap(SPACING);
-        flowPane.setVgap(SPACING);
-        flowPane.setPadding(new Insets(SPACING));
-        flowPane.setPrefWrapLength(THUMB_SIZE * 5 + SPACING * 4);
-        flowPane.getStyleClass().add("flow-pane");  // Add for test lookup
-
-        scrollPane = new ScrollPane(flowPane);
+        this(null);
+    }
+
+    public ThumbnailView(ThumbnailStore store) {
+        this(store, DecodeExecutor.getDefault());
+    }
+
+    public ThumbnailView(ThumbnailStore store, DecodeExecutor executor) {
+        this.store = store;
+        this.executor = executor;
+
+        gridPane = new Pane();
+        gridPane.getStyleClass().add("thumbnail-grid");
+        gridPane.getStylesheets().add(ThumbnailView.class.getResource("thumbnail-view.css").toExternalForm());
+
+        scrollPane = new ScrollPane(gridPane);
         scrollPane.setFitToWidth(true);
         scrollPane.setStyle("-fx-background: black;");
-        flowPane.setStyle("-fx-background: black;");
+        gridPane.setStyle("-fx-background: black;");
+
+        scrollPane.vvalueProperty().addListener((obs, oldVal, newVal) -> updateVisibleCells());
+        scrollPane.viewportBoundsProperty().addListener((obs, oldVal, newVal) -> updateVisibleCells());
     }
 
-    public void setImages(List<Image> images, int currentIndex) {
-        flowPane.getChildren().clear();
+    public void setImages(List<ImageEntry> images, int currentIndex) {
+        generation++;
+        this.images = images;
         selectedIndex = currentIndex;  // Track initial selection
 
-        for (int i = 0; i < images.size(); i++) {
-            Image image = images.get(i);
-            ImageView thumbView = createThumbnail(image);
+        for (ThumbnailCell cell : visibleCells.values()) {
+            cell.unbind();
+            recycledCells.push(cell);
+        }
+        visibleCells.clear();
+        updateVisibleCells();
+    }
+
+    private void updateVisibleCells() {
+        Bounds viewport = scrollPane.getViewportBounds();
+        if (viewport == null || viewport.getWidth() <= 0) return;
+
+        int newColumns = Math.max(1, (int) ((viewport.getWidth() - SPACING) / CELL_STRIDE));
+        if (newColumns != columns) {
+            // Every cell moves when the column count changes
+            columns = newColumns;
+            for (ThumbnailCell cell : visibleCells.values()) {
+                cell.position();
+            }
+        }
+
+        int rows = (images.size() + columns - 1) / columns;
+        double contentHeight = SPACING + rows * CELL_STRIDE;
+        gridPane.setPrefHeight(contentHeight);
+
+        double scrollTop = scrollPane.getVvalue() * Math.max(0, contentHeight - viewport.getHeight());
+        int firstRow = Math.max(0, (int) (scrollTop / CELL_STRIDE) - OVERSCAN_ROWS);
+        int lastRow = (int) ((scrollTop + viewport.getHeight()) / CELL_STRIDE) + OVERSCAN_ROWS;
+        int first = firstRow * columns;
+        int last = Math.min(images.size() - 1, (lastRow + 1) * columns - 1);
+
+        Iterator<Map.Entry<Integer, ThumbnailCell>> cells = visibleCells.entrySet().iterator();
+        while (cells.hasNext()) {
+            Map.Entry<Integer, ThumbnailCell> visible = cells.next();
+            if (visible.getKey() < first || visible.getKey() > last) {
+                visible.getValue().unbind();
+                recycledCells.push(visible.getValue());
+                cells.remove();
+            }
+        }
+
+        for (int index = first; index <= last; index++) {
+            if (!visibleCells.containsKey(index)) {
+                ThumbnailCell cell = recycledCells.isEmpty() ? createCell() : recycledCells.pop();
+                cell.bind(index);
+                visibleCells.put(index, cell);
+            }
+        }
+    }
 
-            StackPane thumbContainer = new StackPane(thumbView);
-            thumbContainer.getStyleClass().add("stack-pane");  // Add for test lookup
+    private ThumbnailCell createCell() {
+        ThumbnailCell cell = new ThumbnailCell();
+        gridPane.getChildren().add(cell);
+        return cell;
+    }
 
-            if (i == currentIndex) {
-                thumbContainer.setStyle("-fx-border-color: white; -fx-border-width: 2;");
+    private void requestThumbnail(ThumbnailCell cell, int index, ImageEntry entry) {
+        int requestGeneration = generation;
+        CompletableFuture<Image> request = executor.submitDecode(() -> {
+            // Skip cells that scrolled away before a decode thread got to them
+            if (requestGeneration != generation || cell.boundIndex != index) return null;
+            Image thumbnail = loadThumbnail(entry);
+            if (thumbnail != null) {
+                Platform.runLater(() -> {
+                    recentThumbnails.put(entry, thumbnail);
+                    if (cell.boundIndex == index) {
+                        cell.thumbView.setImage(thumbnail);
+                    }
+                });
             }
+            return thumbnail;
+        });
+        if (executor.isQueueFull(request)) {
+            deferredCells.add(cell);
+            retryLater();
+        } else {
+            deferredCells.remove(cell);
+        }
+    }
 
-            final int index = i;
-            thumbContainer.setOnMouseClicked(e -> {
-                if (onThumbnailSelected != null) {
-                    selectedIndex = index;  // Update selection on click
-                    onThumbnailSelected.accept(index);
+    // Scrolling fast fills the queue with requests for cells long gone, which are
+    // skipped when their turn comes; only cells still showing nothing ask again
+    private void retryLater() {
+        if (retryScheduled) return;
+        retryScheduled = true;
+        PauseTransition pause = new PauseTransition(Duration.millis(DecodeExecutor.QUEUE_RETRY_MILLIS));
+        pause.setOnFinished(e -> {
+            retryScheduled = false;
+            List<ThumbnailCell> deferred = new ArrayList<>(deferredCells);
+            deferredCells.clear();
+            for (ThumbnailCell cell : deferred) {
+                if (cell.boundIndex >= 0 && cell.thumbView.getImage() == null) {
+                    requestThumbnail(cell, cell.boundIndex, images.get(cell.boundIndex));
                 }
-            });
+            }
+        });
+        pause.play();
+    }
+
+    // Runs on a decode thread: serve from the persistent store, or decode and store
+    private Image loadThumbnail(ImageEntry entry) {
+        int size = (int) THUMB_SIZE;
+        ThumbnailStore.Thumbnail stored = store != null ? store.get(entry, size) : null;
+        if (stored != null) {
+            return toImage(stored);
+        }
 
-            flowPane.getChildren().add(thumbContainer);
+        // Camera JPEGs usually carry a preview; reading it beats any decode
+        CarouselEvents.Decode event = CarouselEvents.beginDecode(entry, "thumbnail");
+        Image decoded = readEmbeddedThumbnail(entry, size);
+        if (decoded == null) {
+            decoded = decodeScaled(entry, size);
+        }
+        if (decoded == null || decoded.isError()) {
+            System.err.println("Could not create thumbnail for " + entry.fileName());
+            return null;
+        }
+        CarouselEvents.endDecode(event, decoded);
+        if (store != null) {
+            store.put(entry, size, toThumbnail(decoded));
         }
+        return decoded;
     }
 
-    private ImageView createThumbnail(Image image) {
-        ImageView thumbView = new ImageView(image);
-        thumbView.setFitWidth(THUMB_SIZE);
-        thumbView.setFitHeight(THUMB_SIZE);
-        thumbView.setPreserveRatio(true);
-        return thumbView;
+    private static Image readEmbeddedThumbnail(ImageEntry entry, int size) {
+        if (entry.format() != ImageFormat.JPEG) return null;
+        byte[] jpeg;
+        try {
+            jpeg = ExifThumbnailReader.read(entry.path());
+        } catch (IOException e) {
+            return null;
+        }
+        if (jpeg == null) return null;
+
+        Image preview = new Image(new ByteArrayInputStream(jpeg));
+        double scale = Math.min((double) size / entry.width(), (double) size / entry.height());
+        double imageAspect = (double) entry.width() / entry.height();
+        double previewAspect = preview.getWidth() / preview.getHeight();
+        // Skip previews smaller than the cell, or letterboxed to a different shape
+        if (preview.isError()
+                || preview.getWidth() < Math.floor(entry.width() * scale)
+                || preview.getHeight() < Math.floor(entry.height() * scale)
+                || Math.abs(previewAspect - imageAspect) > imageAspect * MAX_PREVIEW_ASPECT_ERROR) {
+            return null;
+        }
+        return preview;
+    }
+
+    // Decode straight to thumbnail size instead of scaling a full-size image
+    private static Image decodeScaled(ImageEntry entry, int size) {
+        try {
+            Image decoded = ImageDecoders.decode(entry, size, size);
+            if (decoded != null) return decoded;
+        } catch (IOException e) {
+            System.err.println("Scaled decode failed for " + entry.fileName() + ": " + e.getMessage());
+        }
+        if (ImageLoader.isLarge(entry)) {
+            // Too large to decode whole; keep every n-th pixel while streaming through the file
+            try {
+                return RegionDecoder.decode(entry.path(), null,
+                        RegionDecoder.subsamplingFor(entry.width(), entry.height(), size, size));
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        try (InputStream input = MappedFileInput.openStream(entry.path())) {
+            return new Image(input, size, size, true, true);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static ThumbnailStore.Thumbnail toThumbnail(Image image) {
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        int[] pixels = new int[width * height];
+        image.getPixelReader().getPixels(0, 0, width, height,
+                PixelFormat.getIntArgbInstance(), pixels, 0, width);
+        return new ThumbnailStore.Thumbnail(width, height, pixels);
+    }
+
+    private static Image toImage(ThumbnailStore.Thumbnail thumbnail) {
+        WritableImage image = new WritableImage(thumbnail.width(), thumbnail.height());
+        image.getPixelWriter().setPixels(0, 0, thumbnail.width(), thumbnail.height(),
+                PixelFormat.getIntArgbInstance(), thumbnail.pixels(), 0, thumbnail.width());
+        return image;
     }
 
     public void setOnThumbnailSelected(Consumer<Integer> handler) {
@@ -77,27 +342,42 @@ public class ThumbnailView {
     }
 
     public void scrollToThumbnail(int index) {
-        if (index >= 0 && index < flowPane.getChildren().size()) {
-            StackPane thumb = (StackPane) flowPane.getChildren().get(index);
-            scrollPane.setVvalue(thumb.getBoundsInParent().getMinY() /
-                                 (flowPane.getBoundsInParent().getHeight() - scrollPane.getViewportBounds().getHeight()));
+        Bounds viewport = scrollPane.getViewportBounds();
+        if (index < 0 || index >= images.size() || viewport == null) return;
+
+        // Cells may not exist yet, so work from the row position rather than node bounds
+        double rowTop = (index / columns) * CELL_STRIDE;
+        double rowBottom = rowTop + CELL_STRIDE + SPACING;
+        double scrollRange = gridPane.getPrefHeight() - viewport.getHeight();
+        if (scrollRange <= 0) return;
+
+        double scrollTop = scrollPane.getVvalue() * scrollRange;
+        if (rowTop >= scrollTop && rowBottom <= scrollTop + viewport.getHeight()) {
+            return;  // Already fully visible
         }
+        double target = rowTop < scrollTop ? rowTop : rowBottom - viewport.getHeight();
+        scrollPane.setVvalue(Math.min(1.0, Math.max(0.0, target / scrollRange)));
     }
 
     public void updateSelection(int newIndex) {
+        select(newIndex);
+        scrollToThumbnail(newIndex);
+    }
+
+    // Only the previously and newly selected cells change, however large the grid
+    private void select(int newIndex) {
+        ThumbnailCell previous = visibleCells.get(selectedIndex);
+        if (previous != null) {
+            previous.pseudoClassStateChanged(SELECTED, false);
+        }
         selectedIndex = newIndex;  // Update tracked selection
-        for (int i = 0; i < flowPane.getChildren().size(); i++) {
-            StackPane thumbContainer = (StackPane) flowPane.getChildren().get(i);
-            if (i == newIndex) {
-                thumbContainer.setStyle("-fx-border-color: white; -fx-border-width: 2;");
-            } else {
-                thumbContainer.setStyle(null);
-            }
+        ThumbnailCell current = visibleCells.get(newIndex);
+        if (current != null) {
+            current.pseudoClassStateChanged(SELECTED, true);
         }
-        scrollToThumbnail(newIndex);
     }
 
     public int getSelectedIndex() {
         return selectedIndex;  // Return tracked selection instead of checking styles
     }
-}
\ No newline at end of file
+}
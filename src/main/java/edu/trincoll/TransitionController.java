@@ -1,52 +1,201 @@
 package edu.trincoll;
 
+import javafx.animation.Animation;
 import javafx.animation.FadeTransition;
 import javafx.animation.ParallelTransition;
+import javafx.animation.Transition;
 import javafx.animation.TranslateTransition;
+import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
 import javafx.scene.layout.StackPane;
 import javafx.util.Duration;
 
+import java.util.function.Consumer;
+
+/**
+ * Transitions between slides using a fixed pair of image views. The front view shows
+ * the current slide and the back view receives the next one; after each transition
+ * the two swap roles. Both views stay in the container for good, so a slide change
+ * only updates images, opacity and translation. Blend-based transitions, and fades
+ * when compositing is turned on, are instead drawn by a {@link PixelCompositor} into a
+ * third fixed view that covers the pair while they run. A slide still decoding is
+ * held back, with the outgoing slide left up, until its pixels arrive.
+ * <p>
+ * Every transition's frame pacing is measured. When several transitions in a row drop
+ * too many frames, later transitions fall back to a cheaper type. After a longer run
+ * of slides on time, the next more expensive type is tried again.
+ */
 public class TransitionController {
     private static final Duration TRANSITION_DURATION = Duration.millis(500);
+    // A transition misses its budget when it drops more than this share of its frames
+    private static final double MAX_DROPPED_RATIO = 0.1;
+    private static final int MISSES_BEFORE_FALLBACK = 3;
+    static final int ON_TIME_BEFORE_RECOVERY = 10;
     private final StackPane container;
-    private ParallelTransition currentTransition;
+    private ImageView frontView;
+    private ImageView backView;
+    private final ImageView compositeView;
+    private final PixelCompositor compositor = new PixelCompositor();
+    private boolean compositeFades = false;
+    private Animation currentTransition;
+    // The incoming view while its image is still decoding
+    private ImageView heldView;
+    private final FrameTimeMonitor frameMonitor = new FrameTimeMonitor();
+    private int fallbackLevel = 0;
+    private TransitionType requestedType = TransitionType.NONE;
+    private int consecutiveMisses = 0;
+    private int consecutiveOnTime = 0;
+    private Consumer<TransitionType> onFallback;
 
     public TransitionController(StackPane container) {
         this.container = container;
+        this.frontView = createView();
+        this.backView = createView();
+        this.compositeView = new ImageView();
+        backView.setOpacity(0);
+        compositeView.setOpacity(0);
+        container.getChildren().setAll(backView, frontView, compositeView);
     }
 
-    public void transition(ImageView oldView, ImageView newView, TransitionType type) {
-        // Stop any ongoing transition
-        if (currentTransition != null) {
-            currentTransition.stop();
+    private static ImageView createView() {
+        ImageView view = new ImageView();
+        view.setPreserveRatio(true);
+        view.setSmooth(true);
+        return view;
+    }
+
+    /** The view showing the current slide, or the one being transitioned to. */
+    public ImageView getFrontView() {
+        return frontView;
+    }
+
+    /** Draws fades with the pixel compositor instead of fading the two views. */
+    public void setCompositeFades(boolean compositeFades) {
+        this.compositeFades = compositeFades;
+    }
+
+    /** Called with the new effective type whenever transitions fall back or recover. */
+    public void setOnFallback(Consumer<TransitionType> handler) {
+        this.onFallback = handler;
+    }
+
+    /** Goes back to the requested type, for example after the user changes settings. */
+    public void resetFallback() {
+        fallbackLevel = 0;
+        consecutiveMisses = 0;
+        consecutiveOnTime = 0;
+    }
+
+    /** The type actually used when {@code requested} is asked for on this device. */
+    public TransitionType effectiveType(TransitionType requested) {
+        TransitionType type = requested;
+        for (int i = 0; i < fallbackLevel; i++) {
+            type = type.fallback();
         }
+        return type;
+    }
 
-        // Reset any existing transforms
-        if (oldView != null) {
-            oldView.setTranslateX(0);
-            oldView.setOpacity(1.0);
-            oldView.setScaleX(1.0);
-            oldView.setScaleY(1.0);
+    public void show(Image image, double fitWidth, double fitHeight, TransitionType requested) {
+        // Stop any ongoing transition and settle both views at its end state
+        stopCurrentTransition();
+        requestedType = requested;
+        TransitionType type = effectiveType(requested);
+        if (type == TransitionType.NONE && requested != TransitionType.NONE) {
+            // Reduced all the way, so no frames are measured; a cut is always on time
+            recordOnTime();
         }
+        reset(frontView, 1.0);
 
-        newView.setTranslateX(0);
-        newView.setOpacity(1.0);
-        newView.setScaleX(1.0);
-        newView.setScaleY(1.0);
+        ImageView oldView = frontView;
+        ImageView newView = backView;
+        reset(newView, 0.0);
+        newView.setImage(image);
+        newView.setFitWidth(fitWidth);
+        newView.setFitHeight(fitHeight);
+        frontView = newView;
+        backView = oldView;
 
+        if (oldView.getImage() == null) {
+            type = TransitionType.NONE;  // Nothing to transition from
+        }
+        if (type != TransitionType.NONE && PendingImage.isLoading(image)) {
+            // Keep the outgoing slide up rather than transition to a blank frame
+            heldView = newView;
+            TransitionType held = type;
+            PendingImage.whenLoaded(image, () -> {
+                if (heldView == newView && newView.getImage() == image) {
+                    heldView = null;
+                    start(oldView, newView, held);
+                }
+            });
+            return;
+        }
+        start(oldView, newView, type);
+    }
+
+    private void start(ImageView oldView, ImageView newView, TransitionType type) {
         switch (type) {
-            case NONE -> container.getChildren().setAll(newView);
-            case FADE -> performFadeTransition(oldView, newView);
+            case NONE -> finish(oldView, newView);
+            case FADE -> {
+                if (compositeFades && canComposite(oldView, newView)) {
+                    performCompositeTransition(oldView, newView, type);
+                } else {
+                    performFadeTransition(oldView, newView);
+                }
+            }
             case SLIDE_LEFT -> performSlideTransition(oldView, newView, -1);
             case SLIDE_RIGHT -> performSlideTransition(oldView, newView, 1);
+            case DISSOLVE, WIPE -> {
+                if (canComposite(oldView, newView)) {
+                    performCompositeTransition(oldView, newView, type);
+                } else {
+                    // The incoming slide has no pixels to blend yet
+                    performFadeTransition(oldView, newView);
+                }
+            }
         }
     }
 
-    private void performFadeTransition(ImageView oldView, ImageView newView) {
-        newView.setOpacity(0);
-        container.getChildren().add(newView);
+    public void clear() {
+        stopCurrentTransition();
+        frontView.setImage(null);
+        backView.setImage(null);
+    }
 
+    private void stopCurrentTransition() {
+        if (heldView != null) {
+            // The held slide never appeared, so the outgoing one is still the current slide
+            heldView.setImage(null);
+            frontView = backView;
+            backView = heldView;
+            heldView = null;
+        }
+        if (currentTransition != null) {
+            currentTransition.stop();
+            currentTransition = null;
+            // Cut short by the next slide, so its timing says nothing about the device
+            frameMonitor.stop();
+        }
+        // A blend cut short would otherwise sit over whatever plays next
+        compositeView.setOpacity(0);
+        compositeView.setImage(null);
+    }
+
+    private static void reset(ImageView view, double opacity) {
+        view.setTranslateX(0);
+        view.setOpacity(opacity);
+    }
+
+    private void finish(ImageView oldView, ImageView newView) {
+        reset(newView, 1.0);
+        reset(oldView, 0.0);
+        compositeView.setOpacity(0);
+        // Let the previous slide's pixels go; the view itself is reused next time
+        oldView.setImage(null);
+    }
+
+    private void performFadeTransition(ImageView oldView, ImageView newView) {
         FadeTransition fadeOut = new FadeTransition(TRANSITION_DURATION, oldView);
         fadeOut.setFromValue(1.0);
         fadeOut.setToValue(0.0);
@@ -55,15 +204,13 @@ public class TransitionController {
         fadeIn.setFromValue(0.0);
         fadeIn.setToValue(1.0);
 
-        currentTransition = new ParallelTransition(fadeOut, fadeIn);
-        currentTransition.setOnFinished(e -> container.getChildren().remove(oldView));
-        currentTransition.play();
+        play(new ParallelTransition(fadeOut, fadeIn), oldView, newView, TransitionType.FADE);
     }
 
     private void performSlideTransition(ImageView oldView, ImageView newView, double direction) {
         double width = container.getWidth();
+        newView.setOpacity(1.0);
         newView.setTranslateX(width * direction);
-        container.getChildren().add(newView);
 
         TranslateTransition slideOut = new TranslateTransition(TRANSITION_DURATION, oldView);
         slideOut.setToX(-width * direction);
@@ -71,11 +218,93 @@ public class TransitionController {
         TranslateTransition slideIn = new TranslateTransition(TRANSITION_DURATION, newView);
         slideIn.setToX(0);
 
-        currentTransition = new ParallelTransition(slideOut, slideIn);
-        currentTransition.setOnFinished(e -> {
-            container.getChildren().remove(oldView);
-            oldView.setTranslateX(0);
+        play(new ParallelTransition(slideOut, slideIn), oldView, newView,
+                direction < 0 ? TransitionType.SLIDE_LEFT : TransitionType.SLIDE_RIGHT);
+    }
+
+    private boolean canComposite(ImageView oldView, ImageView newView) {
+        return isReady(oldView.getImage()) && isReady(newView.getImage())
+                && container.getWidth() > 0 && container.getHeight() > 0;
+    }
+
+    private static boolean isReady(Image image) {
+        return image != null && PendingImage.isLoaded(image);
+    }
+
+    private void performCompositeTransition(ImageView oldView, ImageView newView, TransitionType type) {
+        double pixelScale = container.getScene() != null && container.getScene().getWindow() != null
+                ? container.getScene().getWindow().getOutputScaleX()
+                : 1.0;
+        WritableImage frame = compositor.prepare(oldView, newView,
+                (int) Math.ceil(container.getWidth() * pixelScale),
+                (int) Math.ceil(container.getHeight() * pixelScale),
+                pixelScale, type);
+        compositeView.setImage(frame);
+        compositeView.setFitWidth(container.getWidth());
+        compositeView.setFitHeight(container.getHeight());
+        compositeView.setOpacity(1.0);
+
+        Transition blend = new Transition() {
+            {
+                setCycleDuration(TRANSITION_DURATION);
+            }
+
+            @Override
+            protected void interpolate(double fraction) {
+                compositor.render(fraction);
+            }
+        };
+        play(blend, oldView, newView, type);
+    }
+
+    private void play(Animation transition, ImageView oldView, ImageView newView,
+                      TransitionType type) {
+        currentTransition = transition;
+        CarouselEvents.TransitionRun event = CarouselEvents.beginTransition(type);
+        transition.setOnFinished(e -> {
+            finish(oldView, newView);
+            currentTransition = null;
+            FrameTimeMonitor.FrameStats stats = frameMonitor.stop();
+            CarouselEvents.endTransition(event, stats);
+            recordFrameStats(type, stats);
         });
-        currentTransition.play();
+        frameMonitor.start();
+        transition.play();
+    }
+
+    void recordFrameStats(TransitionType type, FrameTimeMonitor.FrameStats stats) {
+        System.out.println(String.format("Transition %s: %d frames, %d dropped, worst %.1f ms",
+                type.getDisplayName(), stats.frames(), stats.droppedFrames(), stats.worstFrameMillis()));
+
+        boolean missed = stats.droppedFrames() > stats.expectedFrames() * MAX_DROPPED_RATIO;
+        if (!missed) {
+            recordOnTime();
+            return;
+        }
+        consecutiveOnTime = 0;
+        consecutiveMisses++;
+        if (consecutiveMisses >= MISSES_BEFORE_FALLBACK && type != TransitionType.NONE) {
+            consecutiveMisses = 0;
+            fallbackLevel++;
+            TransitionType cheaper = effectiveType(requestedType);
+            System.out.println("Transitions keep missing the frame budget; falling back from "
+                    + type.getDisplayName() + " to " + cheaper.getDisplayName());
+            if (onFallback != null) {
+                onFallback.accept(cheaper);
+            }
+        }
+    }
+
+    // A fallback may have been caused by a passing load, so it is not permanent
+    private void recordOnTime() {
+        consecutiveMisses = 0;
+        if (fallbackLevel == 0 || ++consecutiveOnTime < ON_TIME_BEFORE_RECOVERY) return;
+        consecutiveOnTime = 0;
+        fallbackLevel--;
+        TransitionType restored = effectiveType(requestedType);
+        System.out.println("Transitions are keeping up again; trying " + restored.getDisplayName());
+        if (onFallback != null) {
+            onFallback.accept(restored);
+        }
     }
-}
\ No newline at end of file
+}
@@ -4,7 +4,9 @@ public enum TransitionType {
     NONE("None"),
     FADE("Fade"),
     SLIDE_LEFT("Slide Left"),
-    SLIDE_RIGHT("Slide Right");
+    SLIDE_RIGHT("Slide Right"),
+    DISSOLVE("Dissolve"),
+    WIPE("Wipe");
 
     private final String displayName;
 
@@ -15,4 +17,12 @@ public enum TransitionType {
     public String getDisplayName() {
         return displayName;
     }
+
+    // The next cheaper transition: a slide moves the views without blending them
+    public TransitionType fallback() {
+        return switch (this) {
+            case FADE -> SLIDE_LEFT;
+            case SLIDE_LEFT, SLIDE_RIGHT, DISSOLVE, WIPE, NONE -> NONE;
+        };
+    }
 }
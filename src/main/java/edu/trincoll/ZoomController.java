@@ -2,26 +2,34 @@ package edu.trincoll;
 
 import javafx.event.EventHandler;
 import javafx.geometry.Point2D;
+import javafx.scene.Node;
 import javafx.scene.control.ScrollPane;
-import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.StackPane;
 
+import java.util.function.DoubleConsumer;
+
 public class ZoomController {
     private static final double MIN_ZOOM = 1.0;
     private static final double MAX_ZOOM = 5.0;
     private static final double ZOOM_FACTOR = 1.1;
 
+    /** Zoom level and pan offset, enough to put the view back where the user left it. */
+    public record ZoomState(double zoom, double translateX, double translateY) {
+    }
+
     private final ScrollPane scrollPane;
     private final StackPane zoomPane;
-    private ImageView currentImageView;
+    private Node content;
     private double currentZoom = 1.0;
+    private double maxZoom = MAX_ZOOM;
     private Point2D dragAnchor;
+    private DoubleConsumer onZoomChanged;
 
-    public ZoomController(ImageView initialImageView) {
-        this.currentImageView = initialImageView;
-        this.zoomPane = new StackPane(initialImageView);
+    public ZoomController(Node content) {
+        this.content = content;
+        this.zoomPane = new StackPane(content);
         this.scrollPane = new ScrollPane(zoomPane);
 
         setupScrollPane();
@@ -67,7 +75,7 @@ public class ZoomController {
         // Also add to individual components for redundancy
         scrollPane.addEventFilter(KeyEvent.KEY_PRESSED, keyHandler);
         zoomPane.addEventFilter(KeyEvent.KEY_PRESSED, keyHandler);
-        currentImageView.addEventFilter(KeyEvent.KEY_PRESSED, keyHandler);
+        content.addEventFilter(KeyEvent.KEY_PRESSED, keyHandler);
     }
 
     private Point2D getCenterPoint() {
@@ -80,23 +88,36 @@ public class ZoomController {
     public void zoom(double factor, Point2D pivot) {
         double newZoom = currentZoom * factor;
 
-        if (newZoom >= MIN_ZOOM && newZoom <= MAX_ZOOM) {
+        if (newZoom >= MIN_ZOOM && newZoom <= maxZoom) {
             currentZoom = newZoom;
-            currentImageView.setScaleX(currentZoom);
-            currentImageView.setScaleY(currentZoom);
+            content.setScaleX(currentZoom);
+            content.setScaleY(currentZoom);
 
             double mouseX = pivot.getX();
             double mouseY = pivot.getY();
-            double relativeX = (mouseX - currentImageView.getTranslateX()) / currentImageView.getScaleX();
-            double relativeY = (mouseY - currentImageView.getTranslateY()) / currentImageView.getScaleY();
+            double relativeX = (mouseX - content.getTranslateX()) / content.getScaleX();
+            double relativeY = (mouseY - content.getTranslateY()) / content.getScaleY();
             double newX = mouseX - (relativeX * currentZoom);
             double newY = mouseY - (relativeY * currentZoom);
 
-            currentImageView.setTranslateX(newX);
-            currentImageView.setTranslateY(newY);
+            content.setTranslateX(newX);
+            content.setTranslateY(newY);
+
+            if (onZoomChanged != null) {
+                onZoomChanged.accept(currentZoom);
+            }
         }
     }
 
+    /** Raises the zoom limit for images with more detail; it never drops below the default. */
+    public void setMaxZoom(double maxZoom) {
+        this.maxZoom = Math.max(MAX_ZOOM, maxZoom);
+    }
+
+    public void setOnZoomChanged(DoubleConsumer handler) {
+        this.onZoomChanged = handler;
+    }
+
     private void setupDragHandling() {
         zoomPane.setOnMousePressed(event ->
                 dragAnchor = new Point2D(event.getX(), event.getY()));
@@ -106,8 +127,8 @@ public class ZoomController {
                 double xDelta = event.getX() - dragAnchor.getX();
                 double yDelta = event.getY() - dragAnchor.getY();
 
-                currentImageView.setTranslateX(currentImageView.getTranslateX() + xDelta);
-                currentImageView.setTranslateY(currentImageView.getTranslateY() + yDelta);
+                content.setTranslateX(content.getTranslateX() + xDelta);
+                content.setTranslateY(content.getTranslateY() + yDelta);
 
                 dragAnchor = new Point2D(event.getX(), event.getY());
             }
@@ -118,23 +139,38 @@ public class ZoomController {
 
     public void resetZoom() {
         currentZoom = 1.0;
-        currentImageView.setScaleX(1.0);
-        currentImageView.setScaleY(1.0);
-        currentImageView.setTranslateX(0);
-        currentImageView.setTranslateY(0);
+        content.setScaleX(1.0);
+        content.setScaleY(1.0);
+        content.setTranslateX(0);
+        content.setTranslateY(0);
         scrollPane.setHvalue(0.5);
         scrollPane.setVvalue(0.5);
     }
 
+    public ZoomState getState() {
+        return new ZoomState(currentZoom, content.getTranslateX(), content.getTranslateY());
+    }
+
+    // The saved zoom may exceed what the current image allows, so it is clamped
+    public void restore(ZoomState state) {
+        currentZoom = Math.max(MIN_ZOOM, Math.min(maxZoom, state.zoom()));
+        content.setScaleX(currentZoom);
+        content.setScaleY(currentZoom);
+        content.setTranslateX(currentZoom > MIN_ZOOM ? state.translateX() : 0);
+        content.setTranslateY(currentZoom > MIN_ZOOM ? state.translateY() : 0);
+        if (onZoomChanged != null) {
+            onZoomChanged.accept(currentZoom);
+        }
+    }
+
     public ScrollPane getScrollPane() {
         return scrollPane;
     }
 
-    public void setImage(ImageView newImageView) {
+    public void setContent(Node newContent) {
         resetZoom();
-        zoomPane.getChildren().clear();
-        this.currentImageView = newImageView;
-        zoomPane.getChildren().add(newImageView);
+        this.content = newContent;
+        zoomPane.getChildren().setAll(newContent);
     }
 
     public double getCurrentZoom() {
@@ -1,6 +1,11 @@
 module edu.trincoll.imagecarousel {
     requires javafx.controls;
     requires java.prefs;
+    requires java.desktop;
+    requires jdk.jfr;
 
     exports edu.trincoll;
+
+    uses edu.trincoll.ImageDecoder;
+    provides edu.trincoll.ImageDecoder with edu.trincoll.ScaledJpegDecoder;
 }
\ No newline at end of file
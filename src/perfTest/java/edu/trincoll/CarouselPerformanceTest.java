@@ -0,0 +1,258 @@
+package edu.trincoll;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.Node;
+import javafx.scene.control.ButtonBase;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.stage.Stage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testfx.framework.junit5.ApplicationTest;
+import org.testfx.util.WaitForAsyncUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Boots the real carousel on a generated directory and times what a user waits for:
+ * the first slide, stepping forward and back, opening the thumbnail grid, and the
+ * frames of a fade. Each wait ends on the first pulse at which the result is on
+ * screen. The timings are checked against {@link PerformanceBaseline}.
+ */
+public class CarouselPerformanceTest extends ApplicationTest {
+    private static final int CORPUS_SIZE = 24;
+    private static final int IMAGE_WIDTH = 2400;
+    private static final int IMAGE_HEIGHT = 1600;
+    private static final int NAVIGATION_STEPS = 10;
+    // Long enough for a transition to finish between steps
+    private static final long SETTLE_MILLIS = 700;
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private static final String PREFS_NODE = "/edu/trincoll/perf-test";
+
+    private static Path corpus;
+    private static Path dataDirectory;
+
+    private ImageCarousel carousel;
+    private final CompletableFuture<Long> firstImageShown = new CompletableFuture<>();
+    private long bootStarted;
+
+    @BeforeAll
+    public static void prepare() throws IOException, BackingStoreException {
+        corpus = Files.createTempDirectory("carousel-perf");
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            ImageIO.write(render(i), "jpg", corpus.resolve(String.format("image-%02d.jpg", i)).toFile());
+        }
+
+        // Keep the run's preferences, catalog and thumbnails away from the user's own
+        dataDirectory = Files.createTempDirectory("carousel-perf-home");
+        System.setProperty(PreferencesManager.DATA_DIRECTORY_PROPERTY, dataDirectory.toString());
+        System.setProperty(PreferencesManager.PREFS_NODE_PROPERTY, PREFS_NODE);
+        Preferences.userRoot().node(PREFS_NODE).removeNode();
+
+        // Boot into the corpus with fades and without automatic rotation
+        PreferencesManager prefs = new PreferencesManager();
+        prefs.saveSettings(new Settings(3600, TransitionType.FADE));
+        prefs.saveLastDirectory(corpus);
+    }
+
+    @AfterAll
+    public static void cleanUp() throws IOException, BackingStoreException {
+        Preferences.userRoot().node(PREFS_NODE).removeNode();
+        System.clearProperty(PreferencesManager.PREFS_NODE_PROPERTY);
+        System.clearProperty(PreferencesManager.DATA_DIRECTORY_PROPERTY);
+        deleteRecursively(corpus);
+        deleteRecursively(dataDirectory);
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (var paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Override
+    public void start(Stage stage) {
+        bootStarted = System.nanoTime();
+        carousel = new ImageCarousel();
+        carousel.start(stage);
+        // Installed during boot, so the first pulse showing a slide cannot be missed
+        whenShown(() -> isShowing(carousel.getCurrentView(), null), firstImageShown);
+    }
+
+    @Override
+    public void stop() {
+        carousel.stop();
+    }
+
+    @Test
+    public void carouselStaysWithinBaseline() throws Exception {
+        Map<String, Double> measured = new LinkedHashMap<>();
+        measured.put("timeToFirstImage",
+                millis(firstImageShown.get(TIMEOUT_SECONDS, TimeUnit.SECONDS) - bootStarted));
+        WaitForAsyncUtils.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS, () -> !carousel.isLoading());
+        settle();
+
+        List<Double> frameMeans = new ArrayList<>();
+        List<Double> frameWorst = new ArrayList<>();
+        measured.put("navigation.next.median",
+                median(navigate(carousel.getNextButton(), frameMeans, frameWorst)));
+        measured.put("navigation.previous.median",
+                median(navigate(carousel.getPreviousButton(), frameMeans, frameWorst)));
+        measured.put("transition.frame.mean", median(frameMeans));
+        measured.put("transition.frame.worst", Collections.max(frameWorst));
+
+        measured.put("thumbnailGrid.open", timeThumbnailGrid());
+
+        List<String> regressions = PerformanceBaseline.fromSystemProperties().check(measured);
+        assertTrue(regressions.isEmpty(), String.join("\n", regressions));
+    }
+
+    // Times each step until the new slide is on screen, and the frames of its fade
+    private List<Double> navigate(ButtonBase button, List<Double> frameMeans, List<Double> frameWorst)
+            throws Exception {
+        List<Double> latencies = new ArrayList<>();
+        for (int step = 0; step < NAVIGATION_STEPS; step++) {
+            FrameTimeMonitor monitor = new FrameTimeMonitor();
+            CompletableFuture<Long> shown = new CompletableFuture<>();
+            long[] started = new long[1];
+            interact(() -> {
+                Image previous = carousel.getCurrentView().getImage();
+                monitor.start();
+                started[0] = System.nanoTime();
+                button.fire();
+                whenShown(() -> isShowing(carousel.getCurrentView(), previous), shown);
+            });
+            latencies.add(millis(shown.get(TIMEOUT_SECONDS, TimeUnit.SECONDS) - started[0]));
+
+            settle();
+            FrameTimeMonitor.FrameStats stats = interactAndGet(monitor::stop);
+            if (stats.frames() > 0) {
+                frameMeans.add(millis(stats.durationNanos()) / stats.frames());
+                frameWorst.add(stats.worstFrameMillis());
+            }
+        }
+        return latencies;
+    }
+
+    private double timeThumbnailGrid() throws Exception {
+        Node grid = carousel.getThumbnailView().getScrollPane();
+        CompletableFuture<Long> filled = new CompletableFuture<>();
+        long[] started = new long[1];
+        interact(() -> {
+            started[0] = System.nanoTime();
+            carousel.getThumbnailsButton().fire();
+            whenShown(() -> allThumbnailsShown(grid), filled);
+        });
+        double elapsed = millis(filled.get(TIMEOUT_SECONDS, TimeUnit.SECONDS) - started[0]);
+        interact(() -> carousel.getThumbnailsButton().fire());
+        return elapsed;
+    }
+
+    private static boolean allThumbnailsShown(Node grid) {
+        int shown = 0;
+        for (Node node : grid.lookupAll(".image-view")) {
+            if (node.getParent() == null || !node.getParent().isVisible()) continue;
+            if (!isReady(((ImageView) node).getImage())) return false;
+            shown++;
+        }
+        return shown > 0;
+    }
+
+    private static boolean isShowing(ImageView view, Image previous) {
+        return view != null && view.getImage() != previous && isReady(view.getImage());
+    }
+
+    private static boolean isReady(Image image) {
+        return image != null && PendingImage.isLoaded(image);
+    }
+
+    // Must be called on the FX thread; completes with the time of the first pulse at
+    // which the condition holds
+    private static void whenShown(BooleanSupplier condition, CompletableFuture<Long> result) {
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (condition.getAsBoolean()) {
+                    stop();
+                    result.complete(System.nanoTime());
+                }
+            }
+        }.start();
+    }
+
+    private <T> T interactAndGet(Callable<T> action) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        interact(() -> {
+            try {
+                result.complete(action.call());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static void settle() throws InterruptedException {
+        Thread.sleep(SETTLE_MILLIS);
+        WaitForAsyncUtils.waitForFxEvents();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static double median(List<Double> values) {
+        List<Double> sorted = values.stream().sorted().toList();
+        return sorted.get(sorted.size() / 2);
+    }
+
+    // Gradients with noise, so the files decode like photographs
+    private static BufferedImage render(int seed) {
+        BufferedImage image = new BufferedImage(IMAGE_WIDTH, IMAGE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.getHSBColor(seed * 0.13f, 0.6f, 0.9f),
+                IMAGE_WIDTH, IMAGE_HEIGHT, Color.getHSBColor(seed * 0.13f + 0.5f, 0.8f, 0.3f)));
+        g.fillRect(0, 0, IMAGE_WIDTH, IMAGE_HEIGHT);
+        g.dispose();
+
+        Random random = new Random(seed);
+        int[] row = new int[IMAGE_WIDTH];
+        for (int y = 0; y < IMAGE_HEIGHT; y++) {
+            image.getRGB(0, y, IMAGE_WIDTH, 1, row, 0, IMAGE_WIDTH);
+            for (int x = 0; x < IMAGE_WIDTH; x++) {
+                int noise = random.nextInt(17) - 8;
+                row[x] = Math.clamp((row[x] >> 16 & 0xFF) + noise, 0, 255) << 16
+                        | Math.clamp((row[x] >> 8 & 0xFF) + noise, 0, 255) << 8
+                        | Math.clamp((row[x] & 0xFF) + noise, 0, 255);
+            }
+            image.setRGB(0, y, IMAGE_WIDTH, 1, row, 0, IMAGE_WIDTH);
+        }
+        return image;
+    }
+}
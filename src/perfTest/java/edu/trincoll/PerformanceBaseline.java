@@ -0,0 +1,127 @@
+package edu.trincoll;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Compares measured timings with a stored baseline. A metric fails when it exceeds its
+ * baseline by more than the tolerance; metrics without a baseline are only reported.
+ * Every run writes its measurements to a report. With {@code perf.updateBaseline} set
+ * the run is kept instead of being checked, and the baseline becomes the median of all
+ * runs kept so far, labelled with the machine they ran on.
+ */
+final class PerformanceBaseline {
+    private final Path baselineFile;
+    private final Path reportFile;
+    private final double tolerance;
+    private final boolean update;
+
+    PerformanceBaseline(Path baselineFile, Path reportFile, double tolerance, boolean update) {
+        this.baselineFile = baselineFile;
+        this.reportFile = reportFile;
+        this.tolerance = tolerance;
+        this.update = update;
+    }
+
+    static PerformanceBaseline fromSystemProperties() {
+        return new PerformanceBaseline(
+                Paths.get(System.getProperty("perf.baseline", "src/perfTest/resources/perf-baseline.properties")),
+                Paths.get(System.getProperty("perf.report", "build/reports/perf/results.properties")),
+                Double.parseDouble(System.getProperty("perf.tolerance", "0.25")),
+                Boolean.parseBoolean(System.getProperty("perf.updateBaseline", "false")));
+    }
+
+    /** Returns a description of each regression; empty when everything is within tolerance. */
+    List<String> check(Map<String, Double> measured) throws IOException {
+        write(reportFile, measured, "Measured timings in milliseconds on " + machine());
+        if (update) {
+            recordRun(measured);
+            return List.of();
+        }
+
+        Properties baseline = new Properties();
+        if (Files.exists(baselineFile)) {
+            try (Reader reader = Files.newBufferedReader(baselineFile)) {
+                baseline.load(reader);
+            }
+        }
+
+        List<String> regressions = new ArrayList<>();
+        measured.forEach((metric, value) -> {
+            String stored = baseline.getProperty(metric);
+            if (stored == null) {
+                System.out.printf("%-32s %8.1f ms  (no baseline)%n", metric, value);
+                return;
+            }
+            double limit = Double.parseDouble(stored) * (1 + tolerance);
+            boolean regressed = value > limit;
+            System.out.printf("%-32s %8.1f ms  baseline %s, limit %.1f%s%n",
+                    metric, value, stored, limit, regressed ? "  REGRESSED" : "");
+            if (regressed) {
+                regressions.add(String.format("%s took %.1f ms, over the %.1f ms limit", metric, value, limit));
+            }
+        });
+        return regressions;
+    }
+
+    // Runs are kept beside the report, so a clean build starts a fresh baseline
+    private void recordRun(Map<String, Double> measured) throws IOException {
+        Path runs = reportFile.resolveSibling("baseline-runs");
+        write(runs.resolve("run-" + System.currentTimeMillis() + ".properties"), measured,
+                "Measured timings in milliseconds on " + machine());
+
+        Map<String, List<Double>> samples = new TreeMap<>();
+        int count = 0;
+        try (Stream<Path> files = Files.list(runs)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Properties run = new Properties();
+                try (Reader reader = Files.newBufferedReader(file)) {
+                    run.load(reader);
+                }
+                run.forEach((metric, value) -> samples.computeIfAbsent((String) metric, k -> new ArrayList<>())
+                        .add(Double.parseDouble((String) value)));
+                count++;
+            }
+        }
+
+        Map<String, Double> medians = new TreeMap<>();
+        samples.forEach((metric, values) -> medians.put(metric, median(values)));
+        write(baselineFile, medians, String.format(Locale.ROOT,
+                "Baseline timings in milliseconds for CarouselPerformanceTest%n"
+                        + "Median of %d runs on %s", count, machine()));
+        System.out.println("Recorded performance baseline from " + count + " runs in " + baselineFile);
+    }
+
+    static String machine() {
+        return String.format(Locale.ROOT, "%s %s, %d cores, Java %s",
+                System.getProperty("os.name"), System.getProperty("os.arch"),
+                Runtime.getRuntime().availableProcessors(), System.getProperty("java.version"));
+    }
+
+    private static double median(List<Double> values) {
+        List<Double> sorted = values.stream().sorted().toList();
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static void write(Path file, Map<String, Double> values, String comment) throws IOException {
+        Properties properties = new Properties();
+        values.forEach((metric, value) -> properties.setProperty(metric, String.format(Locale.ROOT, "%.1f", value)));
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            properties.store(writer, comment);
+        }
+    }
+}
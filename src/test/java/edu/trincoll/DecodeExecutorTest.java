@@ -0,0 +1,110 @@
+package edu.trincoll;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DecodeExecutorTest {
+    private final DecodeExecutor executor = new DecodeExecutor(2);
+
+    @AfterEach
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    public void testIoRunsOnVirtualThreads() {
+        assertTrue(executor.submitIo(() -> Thread.currentThread().isVirtual()).join());
+    }
+
+    @Test
+    public void testDecodeRunsOnPlatformThreads() {
+        assertFalse(executor.submitDecode(() -> Thread.currentThread().isVirtual()).join());
+    }
+
+    @Test
+    public void testReadsInFlightAreBounded() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int value = i;
+            results.add(executor.submitIo(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return value;
+            }));
+        }
+
+        // Futures consumed in submission order give results in submission order
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).join());
+        }
+        assertTrue(peak.get() <= 8, "Expected at most 8 reads in flight but saw " + peak.get());
+    }
+
+    // Two running, the rest filling the queue, all waiting for the latch
+    private void fillDecodeQueue(CountDownLatch release) throws Exception {
+        Supplier<Boolean> blocked = () -> {
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        };
+        for (int i = 0; i < 2 + DecodeExecutor.DECODE_QUEUE_CAPACITY; i++) {
+            executor.submitDecode(blocked);
+        }
+        WaitForAsyncUtils.waitFor(5, TimeUnit.SECONDS,
+                () -> executor.getQueuedDecodes() == DecodeExecutor.DECODE_QUEUE_CAPACITY);
+    }
+
+    @Test
+    public void testFullDecodeQueueHoldsBackWaitingSubmitter() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        fillDecodeQueue(release);
+
+        CompletableFuture<CompletableFuture<Boolean>> submitted = CompletableFuture.supplyAsync(
+                () -> executor.submitDecodeWaiting(() -> true));
+        Thread.sleep(200);
+        assertFalse(submitted.isDone(), "Expected the submitter to wait for room in the queue");
+
+        release.countDown();
+        assertTrue(submitted.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFullDecodeQueueFailsSubmitDecodeWithoutBlocking() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        fillDecodeQueue(release);
+
+        CompletableFuture<Boolean> rejected = executor.submitDecode(() -> true);
+
+        assertTrue(rejected.isCompletedExceptionally(), "The FX thread must not wait for room");
+        ExecutionException failure = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+        assertTrue(executor.isQueueFull(rejected));
+
+        release.countDown();
+        WaitForAsyncUtils.waitFor(5, TimeUnit.SECONDS, () -> executor.getQueuedDecodes() == 0);
+        assertTrue(executor.submitDecode(() -> true).get(5, TimeUnit.SECONDS));
+    }
+}
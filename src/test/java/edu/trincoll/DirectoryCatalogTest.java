@@ -0,0 +1,89 @@
+package edu.trincoll;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DirectoryCatalogTest {
+    @TempDir
+    Path tempDir;
+
+    private List<ImageEntry> entries(Path directory) {
+        return List.of(
+                new ImageEntry(directory.resolve("a.jpg"), ImageFormat.JPEG, 1024, 768, 1000, 11),
+                new ImageEntry(directory.resolve("sub/b.png"), ImageFormat.PNG, 640, 480, 2000, 22));
+    }
+
+    @Test
+    public void testEntriesSurviveRoundTrip() {
+        Path directory = tempDir.resolve("images");
+        DirectoryCatalog catalog = new DirectoryCatalog(tempDir.resolve("images.catalog"), directory);
+        List<ImageEntry> saved = entries(directory.toAbsolutePath());
+
+        catalog.save(saved);
+
+        assertEquals(saved, catalog.load());
+    }
+
+    @Test
+    public void testMissingCatalogIsEmpty() {
+        DirectoryCatalog catalog = new DirectoryCatalog(tempDir.resolve("none.catalog"), tempDir);
+        assertTrue(catalog.load().isEmpty());
+    }
+
+    @Test
+    public void testCatalogForAnotherDirectoryIsIgnored() {
+        Path file = tempDir.resolve("shared.catalog");
+        Path first = tempDir.resolve("first").toAbsolutePath();
+        new DirectoryCatalog(file, first).save(entries(first));
+
+        assertTrue(new DirectoryCatalog(file, tempDir.resolve("second")).load().isEmpty());
+    }
+
+    @Test
+    public void testTruncatedCatalogIsIgnored() throws IOException {
+        Path file = tempDir.resolve("truncated.catalog");
+        Path directory = tempDir.toAbsolutePath();
+        DirectoryCatalog catalog = new DirectoryCatalog(file, directory);
+        catalog.save(entries(directory));
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 10));
+
+        assertTrue(catalog.load().isEmpty());
+    }
+
+    @Test
+    public void testOverlappingSavesLeaveOneWholeCatalog() throws Exception {
+        Path file = tempDir.resolve("overlap.catalog");
+        Path directory = tempDir.toAbsolutePath();
+        DirectoryCatalog catalog = new DirectoryCatalog(file, directory);
+        List<ImageEntry> first = entries(directory);
+        List<ImageEntry> second = List.of(
+                new ImageEntry(directory.resolve("c.gif"), ImageFormat.GIF, 320, 240, 3000, 33));
+
+        Thread other = new Thread(() -> {
+            for (int i = 0; i < 50; i++) {
+                catalog.save(second);
+            }
+        });
+        other.start();
+        for (int i = 0; i < 50; i++) {
+            catalog.save(first);
+        }
+        other.join();
+
+        List<ImageEntry> loaded = catalog.load();
+        assertTrue(loaded.equals(first) || loaded.equals(second), "Catalog mixes two saves: " + loaded);
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.filter(path -> path.toString().endsWith(".tmp") || path.equals(file)).count());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package edu.trincoll;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.testfx.framework.junit5.ApplicationTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DirectoryWatcherTest extends ApplicationTest {
+    private static final Path SAMPLE = Paths.get("src/main/resources/generated_image_20241004124054.jpg");
+
+    @TempDir
+    Path directory;
+
+    private DirectoryWatcher watcher;
+    private final BlockingQueue<List<ImageEntry>> updates = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Set<Path>> removals = new LinkedBlockingQueue<>();
+
+    @AfterEach
+    public void tearDown() {
+        if (watcher != null) watcher.close();
+    }
+
+    private void startWatching() throws IOException {
+        watcher = new ImageLoader(directory).watch(new DirectoryWatcher.Listener() {
+            @Override
+            public void onChanges(List<ImageEntry> updated, Set<Path> removed) {
+                if (!updated.isEmpty()) updates.add(updated);
+                if (!removed.isEmpty()) removals.add(removed);
+            }
+
+            @Override
+            public void onOverflow() {
+            }
+        });
+        // Give the watch thread time to register the tree
+        sleep(200, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testReportsCreatedImage() throws Exception {
+        startWatching();
+        Path copy = Files.copy(SAMPLE, directory.resolve("new.jpg"));
+
+        List<ImageEntry> updated = updates.poll(10, TimeUnit.SECONDS);
+        assertNotNull(updated, "Timeout waiting for created image");
+        assertEquals(1, updated.size());
+        assertEquals(copy.toAbsolutePath(), updated.get(0).path().toAbsolutePath());
+        assertEquals(1024, updated.get(0).width());
+    }
+
+    @Test
+    public void testReportsImagesInNewSubdirectory() throws Exception {
+        startWatching();
+        Path subdirectory = Files.createDirectory(directory.resolve("incoming"));
+        Files.copy(SAMPLE, subdirectory.resolve("nested.jpg"));
+
+        List<ImageEntry> updated = updates.poll(10, TimeUnit.SECONDS);
+        assertNotNull(updated, "Timeout waiting for nested image");
+        assertEquals("nested.jpg", updated.get(0).fileName());
+    }
+
+    @Test
+    public void testKeepsWatchingAfterShortLivedDirectory() throws Exception {
+        startWatching();
+        // Gone again before the watcher can register it
+        for (int i = 0; i < 20; i++) {
+            Path temporary = Files.createDirectory(directory.resolve("tmp" + i));
+            Files.writeString(temporary.resolve("part"), "partial");
+            Files.delete(temporary.resolve("part"));
+            Files.delete(temporary);
+        }
+        Files.copy(SAMPLE, directory.resolve("after.jpg"));
+
+        List<ImageEntry> updated = updates.poll(10, TimeUnit.SECONDS);
+        assertNotNull(updated, "Watcher stopped after a vanished directory");
+        assertEquals("after.jpg", updated.get(0).fileName());
+    }
+
+    @Test
+    public void testReportsDeletedImage() throws Exception {
+        Path existing = Files.copy(SAMPLE, directory.resolve("old.jpg"));
+        startWatching();
+        Files.delete(existing);
+
+        Set<Path> removed = removals.poll(10, TimeUnit.SECONDS);
+        assertNotNull(removed, "Timeout waiting for deletion");
+        assertTrue(removed.contains(existing.toAbsolutePath()));
+    }
+
+    @Test
+    public void testIgnoresUnsupportedFiles() throws Exception {
+        startWatching();
+        Files.writeString(directory.resolve("notes.txt"), "not an image");
+        Files.copy(SAMPLE, directory.resolve("real.jpg"));
+
+        List<ImageEntry> updated = updates.poll(10, TimeUnit.SECONDS);
+        assertNotNull(updated);
+        assertEquals(1, updated.size());
+        assertEquals("real.jpg", updated.get(0).fileName());
+    }
+}
@@ -0,0 +1,98 @@
+package edu.trincoll;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExifThumbnailReaderTest {
+    private static final Path SAMPLE = Paths.get("src/main/resources/generated_image_20241004124054.jpg");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testReadsEmbeddedThumbnail() throws IOException {
+        byte[] preview = encodeJpeg(160, 120);
+        Path file = tempDir.resolve("camera.jpg");
+        Files.write(file, withExifThumbnail(Files.readAllBytes(SAMPLE), preview));
+
+        assertArrayEquals(preview, ExifThumbnailReader.read(file));
+    }
+
+    @Test
+    public void testNoThumbnailWithoutExif() throws IOException {
+        assertNull(ExifThumbnailReader.read(SAMPLE));
+    }
+
+    @Test
+    public void testNoThumbnailForOtherFormats() throws IOException {
+        Path file = tempDir.resolve("not-a.jpg");
+        Files.write(file, new byte[]{(byte) 0x89, 'P', 'N', 'G'});
+
+        assertNull(ExifThumbnailReader.read(file));
+    }
+
+    @Test
+    public void testOffsetsOutsideSegmentAreIgnored() throws IOException {
+        byte[] segment = exifSegment(new byte[16]);
+        // Point the thumbnail past the end of the segment
+        segment[6 + 14 + 2 + 8 + 3] = (byte) 0x7F;
+
+        assertNull(ExifThumbnailReader.thumbnail(segment));
+    }
+
+    private static byte[] encodeJpeg(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpg", out);
+        return out.toByteArray();
+    }
+
+    // SOI, an EXIF APP1 segment holding the thumbnail, then the rest of the original file
+    private static byte[] withExifThumbnail(byte[] jpeg, byte[] thumbnail) throws IOException {
+        byte[] segment = exifSegment(thumbnail);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(0xFFD8);
+        out.writeShort(0xFFE1);
+        out.writeShort(segment.length + 2);
+        out.write(segment);
+        out.write(Arrays.copyOfRange(jpeg, 2, jpeg.length));
+        return bytes.toByteArray();
+    }
+
+    // Big-endian TIFF: an empty IFD0 followed by IFD1 with the thumbnail's offset and length
+    private static byte[] exifSegment(byte[] thumbnail) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeBytes("Exif\0\0");
+        out.writeBytes("MM");
+        out.writeShort(42);
+        out.writeInt(8);
+        out.writeShort(0);
+        out.writeInt(14);
+        out.writeShort(2);
+        writeEntry(out, 0x0201, 44);
+        writeEntry(out, 0x0202, thumbnail.length);
+        out.writeInt(0);
+        out.write(thumbnail);
+        return bytes.toByteArray();
+    }
+
+    private static void writeEntry(DataOutputStream out, int tag, int value) throws IOException {
+        out.writeShort(tag);
+        out.writeShort(4);  // LONG
+        out.writeInt(1);
+        out.writeInt(value);
+    }
+}
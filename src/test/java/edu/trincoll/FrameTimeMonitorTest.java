@@ -0,0 +1,45 @@
+package edu.trincoll;
+
+import org.junit.jupiter.api.Test;
+import org.testfx.framework.junit5.ApplicationTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrameTimeMonitorTest extends ApplicationTest {
+    private static final long FRAME = FrameTimeMonitor.FRAME_BUDGET_NANOS;
+
+    @Test
+    public void testSteadyPulsesDropNothing() {
+        FrameTimeMonitor monitor = new FrameTimeMonitor();
+        for (int i = 1; i <= 30; i++) {
+            monitor.record(i * FRAME);
+        }
+
+        FrameTimeMonitor.FrameStats stats = monitor.stop();
+        assertEquals(30, stats.frames());
+        assertEquals(0, stats.droppedFrames());
+        assertEquals(FRAME, stats.worstFrameNanos());
+        assertEquals(29, stats.expectedFrames());
+    }
+
+    @Test
+    public void testLongPulseCountsSkippedFrames() {
+        FrameTimeMonitor monitor = new FrameTimeMonitor();
+        monitor.record(FRAME);
+        monitor.record(2 * FRAME);
+        monitor.record(5 * FRAME);  // Two frames never shown
+        monitor.record(6 * FRAME);
+
+        FrameTimeMonitor.FrameStats stats = monitor.stop();
+        assertEquals(4, stats.frames());
+        assertEquals(2, stats.droppedFrames());
+        assertEquals(3 * FRAME, stats.worstFrameNanos());
+    }
+
+    @Test
+    public void testFallbackGetsCheaper() {
+        assertEquals(TransitionType.SLIDE_LEFT, TransitionType.FADE.fallback());
+        assertEquals(TransitionType.NONE, TransitionType.SLIDE_RIGHT.fallback());
+        assertEquals(TransitionType.NONE, TransitionType.NONE.fallback());
+    }
+}
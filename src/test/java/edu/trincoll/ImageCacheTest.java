@@ -0,0 +1,103 @@
+package edu.trincoll;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import org.junit.jupiter.api.Test;
+import org.testfx.framework.junit5.ApplicationTest;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImageCacheTest extends ApplicationTest {
+    // Each 100x100 entry costs 40,000 bytes
+    private static final long THREE_IMAGE_BUDGET = 3 * 40_000;
+
+    private final ImageCache cache = new ImageCache(THREE_IMAGE_BUDGET,
+            (entry, width, height) -> new WritableImage(width, height));
+
+    private static ImageEntry entry(String name) {
+        return new ImageEntry(Paths.get(name), ImageFormat.PNG, 100, 100, 0, 0);
+    }
+
+    @Test
+    public void testCountsHitsAndMisses() {
+        ImageEntry a = entry("a.png");
+
+        Image first = cache.get(a);
+        Image second = cache.get(a);
+
+        assertSame(first, second);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(40_000, cache.getUsedBytes());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedWhenOverBudget() {
+        ImageEntry a = entry("a.png");
+        ImageEntry b = entry("b.png");
+        ImageEntry c = entry("c.png");
+        ImageEntry d = entry("d.png");
+
+        cache.get(a);
+        cache.get(b);
+        cache.get(c);
+        cache.get(a);  // b is now the least recently used
+        cache.get(d);
+
+        assertEquals(1, cache.getEvictions());
+        assertFalse(cache.contains(b));
+        assertTrue(cache.contains(a));
+        assertTrue(cache.getUsedBytes() <= cache.getBudgetBytes());
+    }
+
+    @Test
+    public void testPinnedEntriesAreNeverEvicted() {
+        ImageEntry a = entry("a.png");
+        ImageEntry b = entry("b.png");
+        ImageEntry c = entry("c.png");
+        ImageEntry d = entry("d.png");
+
+        cache.pin(List.of(a));
+        cache.get(a);
+        cache.get(b);
+        cache.get(c);
+        cache.get(d);
+
+        assertTrue(cache.contains(a));
+        assertFalse(cache.contains(b));
+    }
+
+    @Test
+    public void testDecodesAtDisplaySizeAndRedecodesWhenLarger() {
+        ImageEntry a = entry("a.png");
+
+        cache.setDisplaySize(50, 50);
+        Image small = cache.get(a);
+        assertEquals(50, small.getWidth());
+        assertEquals(10_000, cache.getUsedBytes());
+
+        // Never decoded beyond native size, however large the display
+        Image full = cache.get(a, 400, 400);
+        assertNotSame(small, full);
+        assertEquals(100, full.getWidth());
+        assertEquals(40_000, cache.getUsedBytes());
+
+        // A smaller request is served by the larger decode
+        assertSame(full, cache.get(a));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testClearReleasesEverything() {
+        cache.get(entry("a.png"));
+        cache.get(entry("b.png"));
+
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getUsedBytes());
+    }
+}
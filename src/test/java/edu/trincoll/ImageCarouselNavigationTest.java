@@ -1,11 +1,15 @@
 package edu.trincoll;
 
+import javafx.scene.Node;
 import javafx.stage.Stage;
 import org.junit.jupiter.api.Test;
 import org.testfx.framework.junit5.ApplicationTest;
 import org.testfx.util.WaitForAsyncUtils;
 
 import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -23,12 +27,13 @@ public class ImageCarouselNavigationTest extends ApplicationTest {
     }
 
     @Test
-    public void testNextImageNavigation() {
+    public void testNextImageNavigation() throws TimeoutException {
         // Load images on FX thread and wait for completion
         interact(() -> {
             carousel.loadImages(Paths.get("src/main/resources"));
             WaitForAsyncUtils.waitForFxEvents();
         });
+        waitForLoadToFinish();
 
         // Verify images were loaded
         assertTrue(carousel.getImages() != null && !carousel.getImages().isEmpty(),
@@ -45,12 +50,13 @@ public class ImageCarouselNavigationTest extends ApplicationTest {
     }
 
     @Test
-    public void testPreviousImageNavigationWrapsAround() {
+    public void testPreviousImageNavigationWrapsAround() throws TimeoutException {
         // Load images on FX thread and wait for completion
         interact(() -> {
             carousel.loadImages(Paths.get("src/main/resources"));
             WaitForAsyncUtils.waitForFxEvents();
         });
+        waitForLoadToFinish();
 
         // Verify images were loaded
         assertTrue(carousel.getImages() != null && !carousel.getImages().isEmpty(),
@@ -66,4 +72,32 @@ public class ImageCarouselNavigationTest extends ApplicationTest {
         assertEquals(carousel.getImages().size() - 1, carousel.getCurrentIndex(),
                 "Expected wrap-around to last image");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testResizeRefitsCurrentView() throws TimeoutException {
+        interact(() -> {
+            carousel.loadImages(Paths.get("src/main/resources"));
+            WaitForAsyncUtils.waitForFxEvents();
+        });
+        waitForLoadToFinish();
+
+        Set<Node> viewsBefore = lookup(".image-view").queryAll();
+        int indexBefore = carousel.getCurrentIndex();
+
+        Stage stage = (Stage) carousel.getNextButton().getScene().getWindow();
+        interact(() -> {
+            stage.setWidth(stage.getWidth() - 50);
+            stage.setHeight(stage.getHeight() - 40);
+        });
+        WaitForAsyncUtils.waitForFxEvents();
+
+        // Resizing must not build new views or move off the current slide
+        assertEquals(viewsBefore, lookup(".image-view").queryAll());
+        assertEquals(indexBefore, carousel.getCurrentIndex());
+    }
+
+    private void waitForLoadToFinish() throws TimeoutException {
+        WaitForAsyncUtils.waitFor(10, TimeUnit.SECONDS, () -> !carousel.isLoading());
+        WaitForAsyncUtils.waitForFxEvents();
+    }
+}
@@ -0,0 +1,80 @@
+package edu.trincoll;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImageHeaderReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testReadsJpegFrameHeaderPastLargeSegments() throws IOException {
+        // This sample carries a ~23 KB APP11 segment ahead of its SOF0 marker
+        Path jpeg = Paths.get("src/main/resources/generated_image_20241004124054.jpg");
+        ImageEntry entry = ImageHeaderReader.read(jpeg);
+
+        assertEquals(ImageFormat.JPEG, entry.format());
+        assertEquals(1024, entry.width());
+        assertEquals(768, entry.height());
+    }
+
+    @Test
+    public void testReadsPngHeader() throws IOException {
+        Path png = tempDir.resolve("image.png");
+        Files.write(png, new byte[]{
+                (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n',
+                0, 0, 0, 13, 'I', 'H', 'D', 'R',
+                0, 0, 0x01, 0x40,   // width 320
+                0, 0, 0x00, (byte) 0xF0,   // height 240
+                8, 6, 0, 0, 0
+        });
+
+        ImageEntry entry = ImageHeaderReader.read(png);
+        assertEquals(ImageFormat.PNG, entry.format());
+        assertEquals(320, entry.width());
+        assertEquals(240, entry.height());
+    }
+
+    @Test
+    public void testReadsGifLogicalScreenDescriptor() throws IOException {
+        Path gif = tempDir.resolve("image.gif");
+        Files.write(gif, new byte[]{
+                'G', 'I', 'F', '8', '9', 'a',
+                0x40, 0x01,   // width 320, little-endian
+                (byte) 0xF0, 0x00,   // height 240
+                0, 0, 0
+        });
+
+        ImageEntry entry = ImageHeaderReader.read(gif);
+        assertEquals(ImageFormat.GIF, entry.format());
+        assertEquals(320, entry.width());
+        assertEquals(240, entry.height());
+    }
+
+    @Test
+    public void testRejectsFileWithImageExtensionButNoImageHeader() throws IOException {
+        Path notAnImage = tempDir.resolve("notes.jpg");
+        Files.writeString(notAnImage, "not really a jpeg");
+
+        assertThrows(IOException.class, () -> ImageHeaderReader.read(notAnImage));
+    }
+
+    @Test
+    public void testRejectsTruncatedJpeg() throws IOException {
+        Path truncated = tempDir.resolve("truncated.jpg");
+        byte[] sample = Files.readAllBytes(
+                Paths.get("src/main/resources/generated_image_20241004124054.jpg"));
+        Files.write(truncated, Arrays.copyOf(sample, 1000));
+
+        assertThrows(IOException.class, () -> ImageHeaderReader.read(truncated));
+    }
+}
@@ -3,10 +3,16 @@ package edu.trincoll;
 import javafx.scene.image.Image;
 import org.junit.jupiter.api.Test;
 import org.testfx.framework.junit5.ApplicationTest;
+import org.testfx.util.WaitForAsyncUtils;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -17,16 +23,128 @@ public class ImageLoaderTest extends ApplicationTest {
         Path testResources = Paths.get("src/main/resources");
         ImageLoader imageLoader = new ImageLoader(testResources);
 
-        List<Image> images = imageLoader.loadImages();
+        List<ImageEntry> images = imageLoader.loadImages();
         assertNotNull(images);
         assertFalse(images.isEmpty());
         assertEquals(3, images.size());
+        images.forEach(entry -> {
+            assertEquals(ImageFormat.JPEG, entry.format());
+            assertEquals(1024, entry.width());
+        });
+    }
+
+    @Test
+    public void testParallelLoadKeepsWalkOrder() {
+        Path testResources = Paths.get("src/main/resources");
+        try (DecodeExecutor single = new DecodeExecutor(1); DecodeExecutor eight = new DecodeExecutor(8)) {
+            List<ImageEntry> sequential = new ImageLoader(testResources, single).loadImages();
+            List<ImageEntry> parallel = new ImageLoader(testResources, eight).loadImages();
+
+            assertEquals(sequential, parallel);
+        }
+    }
+
+    @Test
+    public void testPreviewHasRequestedSize() throws TimeoutException {
+        ImageEntry entry = new ImageLoader(Paths.get("src/main/resources")).loadImages().get(0);
+        int width = entry.width() / 4;
+        int height = entry.height() / 4;
+
+        try (DecodeExecutor executor = new DecodeExecutor(1)) {
+            Image preview = ImageLoader.decodePreview(entry, width, height, executor);
+            assertEquals(width, preview.getWidth());
+            assertEquals(height, preview.getHeight());
+            assertTrue(PendingImage.isLoading(preview), "Blank until the decode finishes");
+
+            WaitForAsyncUtils.waitFor(10, TimeUnit.SECONDS, () -> PendingImage.isLoaded(preview));
+            assertNotEquals(0, preview.getPixelReader().getArgb(width / 2, height / 2));
+        }
+    }
+
+    @Test
+    public void testSlideDecodesOnTheExecutor() throws TimeoutException {
+        ImageEntry entry = new ImageLoader(Paths.get("src/main/resources")).loadImages().get(0);
+        int width = entry.width() / 2;
+        int height = entry.height() / 2;
+
+        try (DecodeExecutor executor = new DecodeExecutor(1)) {
+            Image slide = ImageLoader.decode(entry, width, height, executor);
+            assertInstanceOf(PendingImage.class, slide);
+
+            WaitForAsyncUtils.waitFor(10, TimeUnit.SECONDS, () -> PendingImage.isLoaded(slide));
+            assertEquals(width, slide.getWidth());
+            assertEquals(height, slide.getHeight());
+        }
     }
 
     @Test
     public void testLoadImagesWithUnsupportedFiles() {
         ImageLoader imageLoader = new ImageLoader(Paths.get("src/main/resources"));
-        List<Image> images = imageLoader.loadImages();
+        List<ImageEntry> images = imageLoader.loadImages();
         assertFalse(images.isEmpty(), "Expected images to be loaded, ignoring unsupported files");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLoadImagesAsyncPublishesAllImages() throws InterruptedException {
+        ImageLoader imageLoader = new ImageLoader(Paths.get("src/main/resources"));
+        List<ImageEntry> published = new ArrayList<>();
+        AtomicInteger reportedTotal = new AtomicInteger(-1);
+        CountDownLatch completed = new CountDownLatch(1);
+
+        imageLoader.loadImagesAsync(new DirectoryLoadTask.Listener() {
+            @Override
+            public void onBatch(List<ImageEntry> batch) {
+                published.addAll(batch);
+            }
+
+            @Override
+            public void onProgress(int loaded, int found, boolean scanning) {
+            }
+
+            @Override
+            public void onComplete(int total) {
+                reportedTotal.set(total);
+                completed.countDown();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                completed.countDown();
+            }
+        });
+
+        assertTrue(completed.await(10, TimeUnit.SECONDS), "Timeout waiting for async load");
+        assertEquals(3, published.size());
+        assertEquals(published.size(), reportedTotal.get());
+    }
+
+    @Test
+    public void testScanFailureReportsErrorInsteadOfCompletion() throws InterruptedException {
+        ImageLoader imageLoader = new ImageLoader(Paths.get("does-not-exist"));
+        CountDownLatch failed = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(1);
+
+        imageLoader.loadImagesAsync(new DirectoryLoadTask.Listener() {
+            @Override
+            public void onBatch(List<ImageEntry> batch) {
+            }
+
+            @Override
+            public void onProgress(int loaded, int found, boolean scanning) {
+            }
+
+            @Override
+            public void onComplete(int total) {
+                completed.countDown();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                failed.countDown();
+            }
+        });
+
+        assertTrue(failed.await(10, TimeUnit.SECONDS), "Timeout waiting for the scan error");
+        assertFalse(completed.await(500, TimeUnit.MILLISECONDS), "A failed scan must not also complete");
+    }
+}
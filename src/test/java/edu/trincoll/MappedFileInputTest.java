@@ -0,0 +1,44 @@
+package edu.trincoll;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedFileInputTest {
+    private static final Path SAMPLE = Paths.get("src/main/resources/generated_image_20241004124054.jpg");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testMapsLargeFilesOnlyWhereEnabled() throws IOException {
+        assertTrue(Files.size(SAMPLE) >= MappedFileInput.MIN_MAPPED_BYTES);
+        assertEquals(MappedFileInput.MAPPING_ENABLED, MappedFileInput.map(SAMPLE) != null);
+    }
+
+    @Test
+    public void testSmallFilesAreNotMapped() throws IOException {
+        Path small = Files.write(tempDir.resolve("small.bin"), new byte[1024]);
+
+        assertNull(MappedFileInput.map(small));
+    }
+
+    @Test
+    public void testFileCanBeDeletedRightAfterDecoding() throws IOException {
+        Path copy = Files.copy(SAMPLE, tempDir.resolve("copy.jpg"));
+
+        assertNotNull(ScaledJpegDecoder.decodePixels(copy, 120, 120));
+        // ImageIO.read closes the stream
+        assertNotNull(ImageIO.read(MappedFileInput.openImageStream(copy)));
+
+        Files.delete(copy);
+        assertFalse(Files.exists(copy));
+    }
+}
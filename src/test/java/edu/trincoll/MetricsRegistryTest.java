@@ -0,0 +1,50 @@
+package edu.trincoll;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void testCountersAccumulate() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.increment("cache.hit");
+        metrics.increment("cache.hit");
+        metrics.add("decode.pixels", 1000);
+
+        assertEquals(2, metrics.getCount("cache.hit"));
+        assertEquals(1000, metrics.getCount("decode.pixels"));
+        assertEquals(0, metrics.getCount("cache.miss"));
+    }
+
+    @Test
+    public void testLatencyPercentiles() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        for (int i = 0; i < 99; i++) {
+            metrics.recordNanos("decode.slide", 1_000_000);
+        }
+        metrics.recordNanos("decode.slide", 100_000_000);
+
+        MetricsRegistry.LatencyHistogram latency = metrics.getLatency("decode.slide");
+        assertEquals(100, latency.count());
+        assertEquals(1.99, latency.meanMillis(), 0.001);
+        assertEquals(100.0, latency.maxMillis(), 0.001);
+        // Percentiles are bucket upper bounds, so within a factor of two of the samples
+        assertTrue(latency.percentileMillis(0.5) >= 1.0 && latency.percentileMillis(0.5) < 2.0);
+        assertTrue(latency.percentileMillis(0.99) < 2.0);
+        assertEquals(100.0, latency.percentileMillis(1.0), 0.001);
+    }
+
+    @Test
+    public void testDumpListsEverything() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.increment("cache.evict");
+        metrics.recordNanos("transition", 400_000_000);
+
+        String dump = metrics.dump();
+        assertTrue(dump.contains("cache.evict"));
+        assertTrue(dump.contains("transition"));
+        assertNull(metrics.getLatency("slide.display"));
+    }
+}
@@ -0,0 +1,59 @@
+package edu.trincoll;
+
+import javafx.scene.image.WritableImage;
+import org.junit.jupiter.api.Test;
+import org.testfx.framework.junit5.ApplicationTest;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PendingImageTest extends ApplicationTest {
+
+    @Test
+    public void testLoadingUntilPixelsArrive() {
+        PendingImage image = new PendingImage(4, 2);
+        AtomicInteger loaded = new AtomicInteger();
+        interact(() -> PendingImage.whenLoaded(image, loaded::incrementAndGet));
+
+        assertEquals(1.0, image.getProgress(), "A WritableImage reports itself complete");
+        assertTrue(PendingImage.isLoading(image));
+        assertFalse(PendingImage.isLoaded(image));
+        assertEquals(0, loaded.get());
+
+        int[] pixels = new int[8];
+        Arrays.fill(pixels, 0xFF336699);
+        interact(() -> image.complete(pixels));
+
+        assertTrue(PendingImage.isLoaded(image));
+        assertEquals(1, loaded.get());
+        assertEquals(0xFF336699, image.getPixelReader().getArgb(3, 1));
+    }
+
+    @Test
+    public void testCancelledDecodeFails() {
+        PendingImage image = new PendingImage(4, 2);
+        CompletableFuture<Void> decode = new CompletableFuture<>();
+        image.track(decode);
+
+        image.cancel();
+        WaitForAsyncUtils.waitForFxEvents();
+
+        assertTrue(decode.isCancelled());
+        assertTrue(PendingImage.isFailed(image));
+        assertFalse(PendingImage.isLoading(image));
+    }
+
+    @Test
+    public void testOrdinaryImagesAreLoadedRightAway() {
+        WritableImage image = new WritableImage(4, 2);
+        AtomicInteger loaded = new AtomicInteger();
+        PendingImage.whenLoaded(image, loaded::incrementAndGet);
+
+        assertTrue(PendingImage.isLoaded(image));
+        assertEquals(1, loaded.get());
+    }
+}
@@ -0,0 +1,59 @@
+package edu.trincoll;
+
+import javafx.scene.image.WritableImage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.testfx.framework.junit5.ApplicationTest;
+
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerformanceHudTest extends ApplicationTest {
+    private static final long FRAME = FrameTimeMonitor.FRAME_BUDGET_NANOS;
+
+    private final DecodeExecutor executor = new DecodeExecutor(1);
+    private final ImageCache cache = new ImageCache(4 * 1024 * 1024,
+            (entry, width, height) -> new WritableImage(width, height));
+
+    @AfterEach
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    public void testTextOnlyChangesOncePerInterval() {
+        PerformanceHud hud = new PerformanceHud(executor, cache);
+        hud.sample(FRAME);
+        hud.sample(2 * FRAME);
+        assertEquals("", hud.getText());
+
+        // Thirty steady frames fill the refresh interval
+        for (int i = 3; i <= 32; i++) {
+            hud.sample(i * FRAME);
+        }
+        String text = hud.getText();
+        assertTrue(text.contains("60.0 FPS"), text);
+        assertTrue(text.contains("frame  16.7 ms"), text);
+
+        hud.sample(33 * FRAME);
+        assertSame(text, hud.getText());
+    }
+
+    @Test
+    public void testShowsCacheOccupancy() {
+        cache.get(new ImageEntry(Paths.get("a.png"), ImageFormat.PNG, 512, 512, 0, 0), 512, 512);
+        PerformanceHud hud = new PerformanceHud(executor, cache);
+        hud.sample(1);
+        hud.sample(1 + PerformanceHud.REFRESH_INTERVAL_NANOS);
+
+        assertTrue(hud.getText().contains("cache 1 / 4 MB (1 images)"), hud.getText());
+        assertTrue(hud.getText().contains("decode queue 0"), hud.getText());
+    }
+
+    @Test
+    public void testHiddenByDefault() {
+        PerformanceHud hud = new PerformanceHud(executor, cache);
+        assertFalse(hud.isShowing());
+    }
+}
@@ -0,0 +1,78 @@
+package edu.trincoll;
+
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+import org.testfx.framework.junit5.ApplicationTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PixelCompositorTest extends ApplicationTest {
+    private static final int SIZE = 16;
+    private static final int BLACK = 0xFF000000;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    private static ImageView solid(Color color) {
+        WritableImage image = new WritableImage(SIZE, SIZE);
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                image.getPixelWriter().setColor(x, y, color);
+            }
+        }
+        ImageView view = new ImageView(image);
+        view.setFitWidth(SIZE);
+        view.setFitHeight(SIZE);
+        return view;
+    }
+
+    private WritableImage prepare(PixelCompositor compositor, TransitionType type) {
+        return compositor.prepare(solid(Color.BLACK), solid(Color.WHITE), SIZE, SIZE, 1.0, type);
+    }
+
+    @Test
+    public void testCrossfadeBlendsChannels() {
+        PixelCompositor compositor = new PixelCompositor();
+        WritableImage frame = prepare(compositor, TransitionType.FADE);
+        assertEquals(BLACK, frame.getPixelReader().getArgb(0, 0));
+
+        compositor.render(0.5);
+        int mid = frame.getPixelReader().getArgb(SIZE / 2, SIZE / 2);
+        assertEquals(0xFF, mid >>> 24);
+        assertEquals(0x7F, mid >> 16 & 0xFF, 1);
+
+        compositor.render(1.0);
+        assertEquals(WHITE, frame.getPixelReader().getArgb(SIZE - 1, SIZE - 1));
+    }
+
+    @Test
+    public void testWipeRevealsFromTheLeft() {
+        PixelCompositor compositor = new PixelCompositor();
+        WritableImage frame = prepare(compositor, TransitionType.WIPE);
+
+        compositor.render(0.5);
+        assertEquals(WHITE, frame.getPixelReader().getArgb(0, 3));
+        assertEquals(BLACK, frame.getPixelReader().getArgb(SIZE - 1, 3));
+    }
+
+    @Test
+    public void testDissolveEndsOnDestination() {
+        PixelCompositor compositor = new PixelCompositor();
+        WritableImage frame = prepare(compositor, TransitionType.DISSOLVE);
+
+        compositor.render(1.0);
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                assertEquals(WHITE, frame.getPixelReader().getArgb(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testSameSizeReusesTheFrame() {
+        PixelCompositor compositor = new PixelCompositor();
+        WritableImage first = prepare(compositor, TransitionType.FADE);
+        WritableImage second = prepare(compositor, TransitionType.WIPE);
+        assertSame(first, second);
+    }
+}
@@ -0,0 +1,51 @@
+package edu.trincoll;
+
+import javafx.scene.image.Image;
+import org.junit.jupiter.api.Test;
+import org.testfx.framework.junit5.ApplicationTest;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegionDecoderTest extends ApplicationTest {
+    private static final Path SAMPLE = Paths.get("src/main/resources/generated_image_20241004124054.jpg");
+
+    @Test
+    public void testDecodesOnlyTheRegion() throws IOException {
+        Image tile = RegionDecoder.decode(SAMPLE, new Rectangle(100, 200, 300, 150), 1);
+
+        assertEquals(300, tile.getWidth());
+        assertEquals(150, tile.getHeight());
+    }
+
+    @Test
+    public void testSubsamplingShrinksTheRegion() throws IOException {
+        Image tile = RegionDecoder.decode(SAMPLE, new Rectangle(0, 0, 512, 512), 4);
+
+        assertEquals(128, tile.getWidth());
+        assertEquals(128, tile.getHeight());
+    }
+
+    @Test
+    public void testWholeImageWhenNoRegion() throws IOException {
+        Image preview = RegionDecoder.decode(SAMPLE, null, 2);
+
+        assertEquals(512, preview.getWidth());
+    }
+
+    @Test
+    public void testSubsamplingNeverGoesBelowTheRequestedSize() {
+        assertEquals(4, RegionDecoder.subsamplingFor(4000, 3000, 1000, 700));
+        assertEquals(1, RegionDecoder.subsamplingFor(800, 600, 1000, 700));
+    }
+
+    @Test
+    public void testMissingFileThrows() {
+        assertThrows(IOException.class,
+                () -> RegionDecoder.decode(Paths.get("does-not-exist.jpg"), null, 1));
+    }
+}
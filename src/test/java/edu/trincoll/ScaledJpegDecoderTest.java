@@ -0,0 +1,88 @@
+package edu.trincoll;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScaledJpegDecoderTest {
+    private static final Path SAMPLE = Paths.get("src/main/resources/generated_image_20241004124054.jpg");
+
+    @Test
+    public void testPicksLargestReductionThatCoversTheTarget() {
+        assertEquals(8, ScaledJpegDecoder.scaleFor(1024, 768, 120, 90));
+        assertEquals(4, ScaledJpegDecoder.scaleFor(1024, 768, 200, 150));
+        assertEquals(2, ScaledJpegDecoder.scaleFor(1024, 768, 512, 384));
+        assertEquals(1, ScaledJpegDecoder.scaleFor(1024, 768, 600, 450));
+    }
+
+    @Test
+    public void testFullSizeMatchesReferenceDecoder() throws IOException {
+        BufferedImage reference = ImageIO.read(SAMPLE.toFile());
+        ScaledJpegDecoder.Pixels pixels = ScaledJpegDecoder.decodePixels(SAMPLE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+        assertEquals(reference.getWidth(), pixels.width());
+        assertEquals(reference.getHeight(), pixels.height());
+        for (int y = 0; y < pixels.height(); y += 37) {
+            for (int x = 0; x < pixels.width(); x += 37) {
+                int expected = reference.getRGB(x, y);
+                int actual = pixels.argb()[y * pixels.width() + x];
+                for (int shift = 0; shift <= 16; shift += 8) {
+                    assertEquals(expected >> shift & 0xFF, actual >> shift & 0xFF, 3.0,
+                            "Channel mismatch at " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAdobeTransformZeroSkipsColorConversion() throws IOException {
+        // The same scan, flagged as RGB: the YCbCr samples must come out unconverted
+        BufferedImage reference = ImageIO.read(SAMPLE.toFile());
+        byte[] jpeg = Files.readAllBytes(SAMPLE);
+        ByteArrayOutputStream flagged = new ByteArrayOutputStream();
+        flagged.write(jpeg, 0, 2);
+        flagged.write(new byte[]{(byte) 0xFF, (byte) 0xEE, 0, 14});
+        flagged.write("Adobe".getBytes(StandardCharsets.US_ASCII));
+        flagged.write(new byte[]{0, 100, 0, 0, 0, 0, 0});
+        flagged.write(jpeg, 2, jpeg.length - 2);
+
+        ScaledJpegDecoder.Pixels pixels = ScaledJpegDecoder.decodePixels(
+                new ByteArrayInputStream(flagged.toByteArray()), Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+        for (int y = 0; y < pixels.height(); y += 37) {
+            for (int x = 0; x < pixels.width(); x += 37) {
+                int rgb = reference.getRGB(x, y);
+                int r = rgb >> 16 & 0xFF, g = rgb >> 8 & 0xFF, b = rgb & 0xFF;
+                int actual = pixels.argb()[y * pixels.width() + x];
+                assertEquals(0.299 * r + 0.587 * g + 0.114 * b, actual >> 16 & 0xFF, 4.0);
+                assertEquals(128 - 0.168736 * r - 0.331264 * g + 0.5 * b, actual >> 8 & 0xFF, 4.0);
+                assertEquals(128 + 0.5 * r - 0.418688 * g - 0.081312 * b, actual & 0xFF, 4.0);
+            }
+        }
+    }
+
+    @Test
+    public void testScaledDecodeFitsTheRequestedSize() throws IOException {
+        ScaledJpegDecoder.Pixels pixels = ScaledJpegDecoder.decodePixels(SAMPLE, 120, 120);
+
+        assertEquals(120, pixels.width());
+        assertEquals(90, pixels.height());
+        assertEquals(0xFF, pixels.argb()[0] >>> 24);
+    }
+
+    @Test
+    public void testRegisteredForJpegOnly() {
+        assertInstanceOf(ScaledJpegDecoder.class, ImageDecoders.forFormat(ImageFormat.JPEG));
+        assertNull(ImageDecoders.forFormat(ImageFormat.PNG));
+    }
+}
@@ -0,0 +1,150 @@
+package edu.trincoll;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThumbnailStoreTest {
+    private static final int THUMB_SIZE = 120;
+
+    @TempDir
+    Path tempDir;
+
+    private ImageEntry createSource(String name) throws IOException {
+        Path source = Files.writeString(tempDir.resolve(name), "pixels");
+        return new ImageEntry(source, ImageFormat.PNG, 400, 300,
+                Files.size(source), Files.getLastModifiedTime(source).toMillis());
+    }
+
+    private static ThumbnailStore.Thumbnail pattern(int width, int height) {
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | (i * 31 & 0xFFFFFF);
+        }
+        return new ThumbnailStore.Thumbnail(width, height, pixels);
+    }
+
+    @Test
+    public void testThumbnailsSurviveReopening() throws IOException {
+        Path pack = tempDir.resolve("thumbs.pack");
+        ImageEntry entry = createSource("a.png");
+        ThumbnailStore.Thumbnail original = pattern(120, 90);
+
+        try (ThumbnailStore store = new ThumbnailStore(pack)) {
+            store.put(entry, THUMB_SIZE, original);
+        }
+
+        try (ThumbnailStore store = new ThumbnailStore(pack)) {
+            ThumbnailStore.Thumbnail loaded = store.get(entry, THUMB_SIZE);
+            assertNotNull(loaded);
+            assertEquals(120, loaded.width());
+            assertEquals(90, loaded.height());
+            assertArrayEquals(original.pixels(), loaded.pixels());
+        }
+    }
+
+    @Test
+    public void testChangedSourceIsAMiss() throws IOException {
+        ImageEntry entry = createSource("a.png");
+        try (ThumbnailStore store = new ThumbnailStore(tempDir.resolve("thumbs.pack"))) {
+            store.put(entry, THUMB_SIZE, pattern(10, 10));
+
+            ImageEntry modified = new ImageEntry(entry.path(), entry.format(), entry.width(),
+                    entry.height(), entry.fileSize(), entry.lastModified() + 1000);
+            assertNull(store.get(modified, THUMB_SIZE));
+            assertNull(store.get(entry, THUMB_SIZE * 2));
+        }
+    }
+
+    @Test
+    public void testInvalidateStaleDropsDeletedSources() throws IOException {
+        ImageEntry kept = createSource("kept.png");
+        ImageEntry deleted = createSource("deleted.png");
+        try (ThumbnailStore store = new ThumbnailStore(tempDir.resolve("thumbs.pack"))) {
+            store.put(kept, THUMB_SIZE, pattern(10, 10));
+            store.put(deleted, THUMB_SIZE, pattern(10, 10));
+            Files.delete(deleted.path());
+
+            store.invalidateStale();
+
+            assertEquals(1, store.size());
+            assertNotNull(store.get(kept, THUMB_SIZE));
+        }
+    }
+
+    @Test
+    public void testTruncatedRecordIsDiscardedOnOpen() throws IOException {
+        Path pack = tempDir.resolve("thumbs.pack");
+        ImageEntry first = createSource("first.png");
+        try (ThumbnailStore store = new ThumbnailStore(pack)) {
+            store.put(first, THUMB_SIZE, pattern(10, 10));
+            store.put(createSource("second.png"), THUMB_SIZE, pattern(10, 10));
+        }
+
+        // Simulate a crash part way through writing the second record
+        long size = Files.size(pack);
+        try (FileChannel channel = FileChannel.open(pack, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 5);
+        }
+
+        try (ThumbnailStore store = new ThumbnailStore(pack)) {
+            assertEquals(1, store.size());
+            assertNotNull(store.get(first, THUMB_SIZE));
+        }
+    }
+
+    @Test
+    public void testCompactionMovesToNextGeneration() throws IOException {
+        Path pack = tempDir.resolve("thumbs.pack");
+        ImageEntry kept = createSource("kept.png");
+        try (ThumbnailStore store = new ThumbnailStore(pack)) {
+            store.put(kept, THUMB_SIZE, pattern(10, 10));
+            for (int i = 0; i < 3; i++) {
+                ImageEntry removed = createSource("removed" + i + ".png");
+                store.put(removed, THUMB_SIZE, pattern(10, 10));
+                Files.delete(removed.path());
+            }
+            // Map the whole pack, as reads do, before it is compacted
+            assertNotNull(store.get(kept, THUMB_SIZE));
+
+            store.invalidateStale();
+
+            assertTrue(Files.exists(tempDir.resolve("thumbs.pack.1")));
+            assertNotNull(store.get(kept, THUMB_SIZE));
+            ImageEntry added = createSource("added.png");
+            store.put(added, THUMB_SIZE, pattern(10, 10));
+            assertNotNull(store.get(added, THUMB_SIZE));
+        }
+
+        try (ThumbnailStore store = new ThumbnailStore(pack)) {
+            assertEquals(2, store.size());
+            assertNotNull(store.get(kept, THUMB_SIZE));
+        }
+    }
+
+    @Test
+    public void testSecondStoreOnSamePackIsReadOnly() throws IOException {
+        Path pack = tempDir.resolve("thumbs.pack");
+        ImageEntry first = createSource("first.png");
+        try (ThumbnailStore owner = new ThumbnailStore(pack)) {
+            owner.put(first, THUMB_SIZE, pattern(10, 10));
+            long size = Files.size(pack);
+
+            try (ThumbnailStore reader = new ThumbnailStore(pack)) {
+                assertNotNull(reader.get(first, THUMB_SIZE));
+
+                ImageEntry second = createSource("second.png");
+                reader.put(second, THUMB_SIZE, pattern(10, 10));
+                assertNull(reader.get(second, THUMB_SIZE));
+                assertEquals(size, Files.size(pack));
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package edu.trincoll;
+
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.jupiter.api.Test;
+import org.testfx.framework.junit5.ApplicationTest;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransitionControllerTest extends ApplicationTest {
+    private StackPane container;
+    private TransitionController controller;
+
+    @Override
+    public void start(Stage stage) {
+        container = new StackPane();
+        controller = new TransitionController(container);
+        stage.setScene(new Scene(container, 400, 300));
+        stage.show();
+    }
+
+    @Test
+    public void testSlidesReuseTheSameViews() {
+        List<Node> views = List.copyOf(container.getChildren());
+        assertEquals(3, views.size(), "Front, back and composite views");
+
+        for (TransitionType type : TransitionType.values()) {
+            WritableImage image = new WritableImage(40, 30);
+            interact(() -> controller.show(image, 400, 300, type));
+
+            assertEquals(views, container.getChildren(), "Views must not be added or removed");
+            assertSame(image, controller.getFrontView().getImage());
+        }
+    }
+
+    @Test
+    public void testFallbackRecoversAfterARunOfOnTimeTransitions() {
+        FrameTimeMonitor.FrameStats missed = new FrameTimeMonitor.FrameStats(10, 20, 120_000_000L, 500_000_000L);
+        FrameTimeMonitor.FrameStats onTime = new FrameTimeMonitor.FrameStats(30, 0, 17_000_000L, 500_000_000L);
+        for (int i = 0; i < 3; i++) {
+            controller.recordFrameStats(TransitionType.FADE, missed);
+        }
+        assertEquals(TransitionType.SLIDE_LEFT, controller.effectiveType(TransitionType.FADE));
+
+        for (int i = 1; i < TransitionController.ON_TIME_BEFORE_RECOVERY; i++) {
+            controller.recordFrameStats(TransitionType.SLIDE_LEFT, onTime);
+        }
+        assertEquals(TransitionType.SLIDE_LEFT, controller.effectiveType(TransitionType.FADE));
+        controller.recordFrameStats(TransitionType.SLIDE_LEFT, onTime);
+        assertEquals(TransitionType.FADE, controller.effectiveType(TransitionType.FADE));
+    }
+
+    @Test
+    public void testResetFallbackRestoresTheRequestedType() {
+        FrameTimeMonitor.FrameStats missed = new FrameTimeMonitor.FrameStats(10, 20, 120_000_000L, 500_000_000L);
+        for (int i = 0; i < 6; i++) {
+            controller.recordFrameStats(TransitionType.FADE, missed);
+        }
+        assertEquals(TransitionType.NONE, controller.effectiveType(TransitionType.FADE));
+
+        controller.resetFallback();
+        assertEquals(TransitionType.FADE, controller.effectiveType(TransitionType.FADE));
+    }
+
+    @Test
+    public void testFrontAndBackSwapRoles() {
+        WritableImage first = new WritableImage(40, 30);
+        WritableImage second = new WritableImage(40, 30);
+
+        interact(() -> controller.show(first, 400, 300, TransitionType.NONE));
+        ImageView firstFront = controller.getFrontView();
+        interact(() -> controller.show(second, 400, 300, TransitionType.NONE));
+        WaitForAsyncUtils.waitForFxEvents();
+
+        assertNotSame(firstFront, controller.getFrontView());
+        assertEquals(1.0, controller.getFrontView().getOpacity());
+        assertEquals(0.0, firstFront.getOpacity());
+        assertNull(firstFront.getImage(), "The idle view should release the previous slide");
+    }
+
+    @Test
+    public void testInterruptedBlendDoesNotCoverNextTransition() {
+        Node compositeView = container.getChildren().get(2);
+        interact(() -> controller.show(new WritableImage(40, 30), 400, 300, TransitionType.NONE));
+        interact(() -> controller.show(new WritableImage(40, 30), 400, 300, TransitionType.DISSOLVE));
+        assertEquals(1.0, compositeView.getOpacity(), "The dissolve draws into the composite view");
+
+        interact(() -> controller.show(new WritableImage(40, 30), 400, 300, TransitionType.FADE));
+
+        assertEquals(0.0, compositeView.getOpacity());
+        assertNull(((ImageView) compositeView).getImage(), "The stale blend frame should be released");
+    }
+
+    @Test
+    public void testDecodingSlideWaitsForItsPixels() {
+        interact(() -> controller.show(new WritableImage(40, 30), 400, 300, TransitionType.NONE));
+        ImageView outgoing = controller.getFrontView();
+        PendingImage incoming = new PendingImage(40, 30);
+
+        interact(() -> controller.show(incoming, 400, 300, TransitionType.FADE));
+        assertEquals(1.0, outgoing.getOpacity(), "The outgoing slide stays up while the next decodes");
+        assertEquals(0.0, controller.getFrontView().getOpacity());
+
+        interact(() -> incoming.complete(new int[40 * 30]));
+        // Let the 500 ms fade run to the end
+        sleep(800);
+        WaitForAsyncUtils.waitForFxEvents();
+        assertEquals(0.0, outgoing.getOpacity(), "The held fade ran once the pixels arrived");
+        assertEquals(1.0, controller.getFrontView().getOpacity());
+    }
+
+    @Test
+    public void testSlideShownAfterAHeldOneTransitionsFromTheOutgoingSlide() {
+        WritableImage first = new WritableImage(40, 30);
+        interact(() -> controller.show(first, 400, 300, TransitionType.NONE));
+        interact(() -> controller.show(new PendingImage(40, 30), 400, 300, TransitionType.FADE));
+
+        WritableImage third = new WritableImage(40, 30);
+        interact(() -> controller.show(third, 400, 300, TransitionType.NONE));
+
+        assertSame(third, controller.getFrontView().getImage());
+        assertEquals(1.0, controller.getFrontView().getOpacity());
+    }
+}
@@ -62,4 +62,26 @@ public class ZoomControllerTest extends ApplicationTest {
         assertEquals(1.0, zoomController.getCurrentZoom(),
                 "Expected zoom level to reset to 1.0");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testRestoreSavedState() {
+        interact(() -> {
+            zoomController.zoom(2.0, new Point2D(100, 100));
+            ZoomController.ZoomState saved = zoomController.getState();
+            zoomController.resetZoom();
+
+            zoomController.restore(saved);
+            assertEquals(saved, zoomController.getState(),
+                    "Expected zoom and pan to come back as saved");
+        });
+    }
+
+    @Test
+    public void testRestoreClampsToMaxZoom() {
+        interact(() -> {
+            zoomController.restore(new ZoomController.ZoomState(50.0, -300, -200));
+            assertEquals(5.0, zoomController.getCurrentZoom(),
+                    "Expected a saved zoom past the limit to be clamped");
+        });
+    }
+}